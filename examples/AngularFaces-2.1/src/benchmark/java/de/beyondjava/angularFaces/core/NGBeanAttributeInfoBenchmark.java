@@ -0,0 +1,224 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads the type information of the 16 properties of a bean, the way AddTypeInformationCallback does: by the request thread or
+ * by a fork-join pool, with and without the NGBeanAttributeInfoCache. The reflective metadata of the bean is cached by the JVM
+ * after the first invocation, so the benchmark shows the cost of a request after the first one. Run it by
+ * <code>mvn -P "MyFaces 2.2.4",benchmark verify -Dbenchmark=NGBeanAttributeInfoBenchmark</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NGBeanAttributeInfoBenchmark {
+	public static class Customer {
+		@NotNull
+		@Size(min = 2, max = 20)
+		private String firstName;
+		@NotNull
+		@Size(min = 2, max = 20)
+		private String lastName;
+		@Size(max = 40)
+		private String street;
+		@Size(max = 10)
+		private String zip;
+		@Size(max = 40)
+		private String city;
+		@Size(max = 40)
+		private String country;
+		@Size(max = 40)
+		private String email;
+		@Size(max = 20)
+		private String phone;
+		@Min(18)
+		@Max(130)
+		private int age;
+		@Min(0)
+		private long customerNumber;
+		private double discount;
+		private boolean vip;
+		private java.util.Date dateOfBirth;
+		@Max(10)
+		private short rating;
+		private Integer visits;
+		private String remarks;
+
+		public String getFirstName() {
+			return firstName;
+		}
+
+		public String getLastName() {
+			return lastName;
+		}
+
+		public String getStreet() {
+			return street;
+		}
+
+		public String getZip() {
+			return zip;
+		}
+
+		public String getCity() {
+			return city;
+		}
+
+		public String getCountry() {
+			return country;
+		}
+
+		public String getEmail() {
+			return email;
+		}
+
+		public String getPhone() {
+			return phone;
+		}
+
+		public int getAge() {
+			return age;
+		}
+
+		public long getCustomerNumber() {
+			return customerNumber;
+		}
+
+		public double getDiscount() {
+			return discount;
+		}
+
+		public boolean isVip() {
+			return vip;
+		}
+
+		public java.util.Date getDateOfBirth() {
+			return dateOfBirth;
+		}
+
+		public short getRating() {
+			return rating;
+		}
+
+		public Integer getVisits() {
+			return visits;
+		}
+
+		public String getRemarks() {
+			return remarks;
+		}
+	}
+
+	private static final String[] PROPERTIES = { "firstName", "lastName", "street", "zip", "city", "country", "email", "phone",
+			"age", "customerNumber", "discount", "vip", "dateOfBirth", "rating", "visits", "remarks" };
+
+	private final List<BeanProperty> properties = new ArrayList<BeanProperty>();
+
+	private ForkJoinPool pool;
+
+	@Setup
+	public void setUp() {
+		for (String property : PROPERTIES) {
+			properties.add(new BeanProperty(Customer.class, property));
+		}
+		pool = new ForkJoinPool();
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Benchmark
+	public int cachedSerial() {
+		int required = 0;
+		for (BeanProperty property : properties) {
+			required += NGBeanAttributeInfoCache.get(property).isRequired() ? 1 : 0;
+		}
+		return required;
+	}
+
+	@Benchmark
+	public int cachedParallel() throws Exception {
+		List<Callable<NGBeanAttributeInfo>> tasks = new ArrayList<Callable<NGBeanAttributeInfo>>(properties.size());
+		for (final BeanProperty property : properties) {
+			tasks.add(new Callable<NGBeanAttributeInfo>() {
+				public NGBeanAttributeInfo call() {
+					return NGBeanAttributeInfoCache.get(property);
+				}
+			});
+		}
+		return count(pool.invokeAll(tasks));
+	}
+
+	@Benchmark
+	public int uncachedSerial() {
+		int required = 0;
+		for (BeanProperty property : properties) {
+			required += new NGBeanAttributeInfo(property).isRequired() ? 1 : 0;
+		}
+		return required;
+	}
+
+	@Benchmark
+	public int uncachedParallel() throws Exception {
+		List<Callable<NGBeanAttributeInfo>> tasks = new ArrayList<Callable<NGBeanAttributeInfo>>(properties.size());
+		for (final BeanProperty property : properties) {
+			tasks.add(new Callable<NGBeanAttributeInfo>() {
+				public NGBeanAttributeInfo call() {
+					return new NGBeanAttributeInfo(property);
+				}
+			});
+		}
+		return count(pool.invokeAll(tasks));
+	}
+
+	private int count(List<Future<NGBeanAttributeInfo>> results) throws Exception {
+		int required = 0;
+		for (Future<NGBeanAttributeInfo> result : results) {
+			required += result.get().isRequired() ? 1 : 0;
+		}
+		return required;
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core;
+
+/**
+ * A property of a bean class, such as the lastName of a Customer. Unlike an EL expression, it doesn't depend on the current request,
+ * so it's suitable as a cache key.
+ */
+public final class BeanProperty {
+	private final Class<?> beanClass;
+	private final String property;
+
+	public BeanProperty(Class<?> beanClass, String property) {
+		this.beanClass = beanClass;
+		this.property = property;
+	}
+
+	public Class<?> getBeanClass() {
+		return beanClass;
+	}
+
+	public String getProperty() {
+		return property;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof BeanProperty)) {
+			return false;
+		}
+		BeanProperty other = (BeanProperty) obj;
+		return beanClass == other.beanClass && property.equals(other.property);
+	}
+
+	@Override
+	public int hashCode() {
+		return beanClass.hashCode() * 31 + property.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return beanClass.getName() + "." + property;
+	}
+}
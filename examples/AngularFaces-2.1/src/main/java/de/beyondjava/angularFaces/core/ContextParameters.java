@@ -0,0 +1,98 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+import javax.faces.context.FacesContext;
+
+/**
+ * Reads the context parameters of AngularFaces. Each parameter is read once per application. The values are stored in the application
+ * map, so applications sharing the AngularFaces jar may be configured differently.
+ */
+public final class ContextParameters {
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.ContextParameters");
+
+	/** Application map attribute containing the values that have already been read. */
+	private static final String VALUES = "de.beyondjava.angularFaces.contextParameters";
+
+	private ContextParameters() {
+	}
+
+	/**
+	 * Is a context parameter set to true?
+	 *
+	 * @param context
+	 *            the current FacesContext
+	 * @param name
+	 *            the name of the context parameter
+	 * @return false if the parameter is missing
+	 */
+	public static boolean isTrue(FacesContext context, String name) {
+		ConcurrentMap<String, Object> values = getValues(context);
+		Boolean value = (Boolean) values.get(name);
+		if (null == value) {
+			value = "true".equalsIgnoreCase(context.getExternalContext().getInitParameter(name));
+			values.putIfAbsent(name, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a numeric context parameter.
+	 *
+	 * @param context
+	 *            the current FacesContext
+	 * @param name
+	 *            the name of the context parameter
+	 * @param defaultValue
+	 *            the value used if the parameter is missing or isn't a number
+	 * @return the value of the parameter
+	 */
+	public static long getNumber(FacesContext context, String name, long defaultValue) {
+		ConcurrentMap<String, Object> values = getValues(context);
+		Long value = (Long) values.get(name);
+		if (null == value) {
+			String s = context.getExternalContext().getInitParameter(name);
+			value = defaultValue;
+			if (null != s && s.trim().length() > 0) {
+				try {
+					value = Long.parseLong(s.trim());
+				} catch (NumberFormatException e) {
+					LOGGER.severe("The context parameter " + name + " has to be a number: " + s);
+				}
+			}
+			values.putIfAbsent(name, value);
+		}
+		return value;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ConcurrentMap<String, Object> getValues(FacesContext context) {
+		Map<String, Object> applicationMap = context.getExternalContext().getApplicationMap();
+		ConcurrentMap<String, Object> values = (ConcurrentMap<String, Object>) applicationMap.get(VALUES);
+		if (null == values) {
+			// concurrent callers may create the map twice, but they read the same parameters
+			values = new ConcurrentHashMap<String, Object>();
+			applicationMap.put(VALUES, values);
+		}
+		return values;
+	}
+}
@@ -21,7 +21,6 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -30,7 +29,6 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.el.ELContext;
-import javax.el.ExpressionFactory;
 import javax.el.PropertyNotFoundException;
 import javax.el.ValueExpression;
 import javax.faces.component.UIComponent;
@@ -44,37 +42,21 @@ import de.beyondjava.angularFaces.components.puiModelSync.PuiModelSync;
 public class ELTools {
 	private final static Pattern EL_EXPRESSION = Pattern.compile("#\\{\\{([A-Z_$€]|[a-z_0-9$€]|\\.)+\\}");
 
-	
-	private static Map<String, NGBeanAttributeInfo> beanAttributeInfos = new HashMap<String, NGBeanAttributeInfo>();
-
-	/** Caching */
-//	private static Map<String, Field> fields = new HashMap<String, Field>();
-
-	/** Caching */
-//	private static Map<String, Method> getters = new HashMap<String, Method>();
 
 	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.common.ELTools");
 	/** Caching */
 //	private static Map<String, List<String>> propertyLists = new HashMap<String, List<String>>();
 
 	public static ValueExpression createValueExpression(String p_expression) {
-		FacesContext context = FacesContext.getCurrentInstance();
-		ExpressionFactory expressionFactory = context.getApplication().getExpressionFactory();
-		ELContext elContext = context.getELContext();
-		ValueExpression vex = expressionFactory.createValueExpression(elContext, p_expression, Object.class);
-		return vex;
+		return ValueExpressionCache.get(FacesContext.getCurrentInstance(), p_expression, Object.class);
 	}
 
 	public static ValueExpression createValueExpression(String p_expression, Class expectedType) {
-		FacesContext context = FacesContext.getCurrentInstance();
-		ExpressionFactory expressionFactory = context.getApplication().getExpressionFactory();
-		ELContext elContext = context.getELContext();
 		if (null == expectedType) {
 			LOGGER.severe("The expected type of " + p_expression + " is null. Defaulting to String.");
 			expectedType = String.class;
 		}
-		ValueExpression vex = expressionFactory.createValueExpression(elContext, p_expression, expectedType);
-		return vex;
+		return ValueExpressionCache.get(FacesContext.getCurrentInstance(), p_expression, expectedType);
 	}
 
 	/**
@@ -87,9 +69,8 @@ public class ELTools {
 	 */
 	public static Object evalAsObject(String p_expression) throws PropertyNotFoundException {
 		FacesContext context = FacesContext.getCurrentInstance();
-		ExpressionFactory expressionFactory = context.getApplication().getExpressionFactory();
 		ELContext elContext = context.getELContext();
-		ValueExpression vex = expressionFactory.createValueExpression(elContext, p_expression, Object.class);
+		ValueExpression vex = ValueExpressionCache.get(context, p_expression, Object.class);
 		Object result = vex.getValue(elContext);
 		if (null == result) {
 			// check whether the JSF attributes exists
@@ -106,9 +87,8 @@ public class ELTools {
 	 */
 	public static String evalAsString(String p_expression) {
 		FacesContext context = FacesContext.getCurrentInstance();
-		ExpressionFactory expressionFactory = context.getApplication().getExpressionFactory();
 		ELContext elContext = context.getELContext();
-		ValueExpression vex = expressionFactory.createValueExpression(elContext, p_expression, String.class);
+		ValueExpression vex = ValueExpressionCache.get(context, p_expression, String.class);
 		String result = (String) vex.getValue(elContext);
 		return result;
 	}
@@ -159,18 +139,29 @@ public class ELTools {
 		return propertyNames;
 	}
 
+	/**
+	 * Returns the validation and layout information of a bean property. The information is read once per bean property.
+	 *
+	 * @param property the bean property
+	 * @return the JSR 303 annotations and the type of the property
+	 */
+	public static NGBeanAttributeInfo getBeanAttributeInfos(BeanProperty property) {
+		return NGBeanAttributeInfoCache.get(property);
+	}
+
+	/**
+	 * Returns the validation and layout information of the bean property displayed by a component. The bean is evaluated, so this
+	 * method has to be called by the request thread.
+	 *
+	 * @param c the component
+	 * @return the JSR 303 annotations and the type of the property
+	 */
 	public static NGBeanAttributeInfo getBeanAttributeInfos(UIComponent c) {
-		String core = getCoreValueExpression(c);
-		synchronized (beanAttributeInfos) {
-			if (beanAttributeInfos.containsKey(c)) {
-				return beanAttributeInfos.get(c);
-			}
+		BeanProperty property = getBeanProperty(c);
+		if (null == property) {
+			return new NGBeanAttributeInfo(c);
 		}
-		NGBeanAttributeInfo info = new NGBeanAttributeInfo(c);
-		synchronized (beanAttributeInfos) {
-			beanAttributeInfos.put(core, info);
-		}
-		return info;
+		return NGBeanAttributeInfoCache.get(property);
 	}
 	
 	public static String getCoreValueExpression(UIComponent component) {
@@ -251,13 +242,25 @@ public class ELTools {
 		return propertyNames;
 	}
 
-	private static Field getField(String p_expression) {
-//		synchronized (fields) {
-//			if (fields.containsKey(p_expression)) {
-//				return fields.get(p_expression);
-//			}
-//		}
+	/**
+	 * Finds the field of a class or one of its super classes. Doesn't need a FacesContext, so it can be called by any thread.
+	 *
+	 * @param c the class
+	 * @param fieldName the name of the field
+	 * @return null if there's no such field
+	 */
+	public static Field getField(Class<?> c, String fieldName) {
+		return PropertyMetadata.get(c, fieldName).getField();
+	}
 
+	/**
+	 * Splits an EL expression such as #{customer.lastName} into the class of the bean and the name of the property. The bean is
+	 * evaluated, so this method has to be called by the request thread.
+	 *
+	 * @param p_expression the EL expression, including the leading "#{" and the trailing brace
+	 * @return null if the expression doesn't denote a bean property or if the bean can't be read
+	 */
+	public static BeanProperty getBeanProperty(String p_expression) {
 		if (p_expression.startsWith("#{") && p_expression.endsWith("}")) {
 			int delimiterPos = p_expression.lastIndexOf('.');
 			if (delimiterPos < 0) {
@@ -272,79 +275,42 @@ public class ELTools {
 						+ "'. Thus JSR 303 annotations can't be read, let alone used by the AngularJS / AngularDart client.");
 				return null;
 			}
-
-			Class<? extends Object> c = container.getClass();
-			while (c != null) {
-				Field declaredField;
-				try {
-					declaredField = c.getDeclaredField(fieldName);
-//					synchronized (fields) {
-//						fields.put(p_expression, declaredField);
-//					}
-					return declaredField;
-				} catch (NoSuchFieldException e) {
-					// let\"s try with the super class
-					c = c.getSuperclass();
-				} catch (SecurityException e) {
-					LOGGER.log(Level.SEVERE, "Unable to access a field", e);
-					e.printStackTrace();
-					return null;
-				}
-			}
+			return new BeanProperty(container.getClass(), fieldName);
 		}
 		return null;
 	}
 
-	private static Method getGetter(String p_expression) {
-//		synchronized (getters) {
-//			if (getters.containsKey(p_expression)) {
-//				return getters.get(p_expression);
-//			}
-//		}
-
-		if (p_expression.startsWith("#{") && p_expression.endsWith("}")) {
-			int delimiterPos = p_expression.lastIndexOf('.');
-			if (delimiterPos < 0) {
-				LOGGER.log(Level.WARNING, "There's no getter to access: #{" + p_expression + "}");
-				return null;
-			}
-			String beanExp = p_expression.substring(0, delimiterPos) + "}";
-			String fieldName = p_expression.substring(delimiterPos + 1, p_expression.length() - 1);
-			String getterName = "get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
-			String booleanGetterName = "is" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
-			Object container = evalAsObject(beanExp);
-			if (null == container) {
-				LOGGER.severe("Can't read the bean '" + beanExp
-						+ "'. Thus JSR 303 annotations can't be read, let alone used by the AngularJS / AngularDart client.");
-				return null;
-			}
-			Method declaredMethod = findMethod(container, getterName);
-			if (null == declaredMethod)
-				declaredMethod = findMethod(container, booleanGetterName);
-//			synchronized (getters) {
-//				getters.put(p_expression, declaredMethod);
-//			}
-			return declaredMethod;
-
+	/**
+	 * Splits the value expression of a component into the class of the bean and the name of the property.
+	 *
+	 * @param p_component the component
+	 * @return null if the component doesn't have a value expression denoting a bean property
+	 */
+	public static BeanProperty getBeanProperty(UIComponent p_component) {
+		ValueExpression valueExpression = p_component.getValueExpression("value");
+		if (valueExpression != null) {
+			return getBeanProperty(valueExpression.getExpressionString());
 		}
 		return null;
 	}
 
-	private static Method findMethod(Object container, String getterName) {
-		Class<? extends Object> c = container.getClass();
-		Method declaredField;
-		try {
-			declaredField = c.getMethod(getterName);
-			return declaredField;
-		} catch (NoSuchMethodException e) {
-			// let\"s try with the super class
-			c = c.getSuperclass();
-		} catch (SecurityException e) {
-			LOGGER.log(Level.SEVERE, "Unable to access a getter for security reasons", e);
-			e.printStackTrace();
+	private static Method getGetter(String p_expression) {
+		BeanProperty property = getBeanProperty(p_expression);
+		if (null == property) {
+			return null;
 		}
-		return null;
+		return getGetter(property.getBeanClass(), property.getProperty());
+	}
 
+	/**
+	 * Finds the getter of a property. Doesn't need a FacesContext, so it can be called by any thread.
+	 *
+	 * @param c the class of the bean
+	 * @param fieldName the name of the property
+	 * @return null if there's no public getter
+	 */
+	public static Method getGetter(Class<?> c, String fieldName) {
+		return PropertyMetadata.get(c, fieldName).getGetter();
 	}
 
 	public static String getNGModel(UIComponent p_component) {
@@ -411,16 +377,34 @@ public class ELTools {
 	 * @return null if there are no annotations, or if they cannot be accessed
 	 */
 	public static Annotation[] readAnnotations(String p_expression) {
-		Field declaredField = getField(p_expression);
-		if (null != declaredField) {
-			if (declaredField.getAnnotations() != null)
-				return declaredField.getAnnotations();
+		BeanProperty property = getBeanProperty(p_expression);
+		if (null == property) {
+			return null;
 		}
-		Method getter = getGetter(p_expression);
-		if (null != getter) {
-			return getter.getAnnotations();
-		}
-		return null;
+		return readAnnotations(property.getBeanClass(), property.getProperty());
+	}
+
+	/**
+	 * Which annotations are given to a bean property? Both the annotations of the field and of the getter are returned. Doesn't need
+	 * a FacesContext, so it can be called by any thread.
+	 *
+	 * @param c the class of the bean
+	 * @param property the name of the property
+	 * @return null if there are no annotations, or if they cannot be accessed
+	 */
+	public static Annotation[] readAnnotations(Class<?> c, String property) {
+		return PropertyMetadata.get(c, property).getAnnotations();
+	}
+
+	/**
+	 * Yields the type of a bean property. Doesn't need a FacesContext, so it can be called by any thread.
+	 *
+	 * @param c the class of the bean
+	 * @param property the name of the property
+	 * @return the type (as class)
+	 */
+	public static Class<?> getType(Class<?> c, String property) {
+		return PropertyMetadata.get(c, property).getType();
 	}
 
 	/**
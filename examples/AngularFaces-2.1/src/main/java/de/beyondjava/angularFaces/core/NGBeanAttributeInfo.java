@@ -64,12 +64,22 @@ public class NGBeanAttributeInfo {
 		readJSR303Annotations(component);
 	}
 
+	/**
+	 * Extract the server side validation and layout informations. This constructor only uses reflection, so it can be called by any
+	 * thread. The information is shared by every expression referring to the property, so it doesn't contain an expression.
+	 * @param property the bean property
+	 */
+	public NGBeanAttributeInfo(BeanProperty property) {
+		readJSR303Annotations(ELTools.readAnnotations(property.getBeanClass(), property.getProperty()));
+		readType(ELTools.getType(property.getBeanClass(), property.getProperty()));
+	}
+
 	public Class<?> getClazz() {
 		return clazz;
 	}
 
 	/**
-	 * @return the coreExpression
+	 * @return the coreExpression, or null if the information has been read from a bean property
 	 */
 	public String getCoreExpression() {
 		return this.coreExpression;
@@ -152,7 +162,11 @@ public class NGBeanAttributeInfo {
 	 */
 	private void readJSR303Annotations(UIComponent component) {
 		coreExpression = ELTools.getCoreValueExpression(component);
-		Annotation[] annotations = ELTools.readAnnotations(component);
+		readJSR303Annotations(ELTools.readAnnotations(component));
+		readType(ELTools.getType(component));
+	}
+
+	private void readJSR303Annotations(Annotation[] annotations) {
 		if (null != annotations) {
 			for (Annotation a : annotations) {
 				if (a instanceof Max) {
@@ -173,8 +187,10 @@ public class NGBeanAttributeInfo {
 				}
 			}
 		}
+	}
 
-		clazz = ELTools.getType(component);
+	private void readType(Class<?> type) {
+		clazz = type;
 		if ((clazz == Integer.class) || (clazz == int.class)
 				|| (clazz == Byte.class) || (clazz == byte.class)
 				|| (clazz == Short.class) || (clazz == short.class)
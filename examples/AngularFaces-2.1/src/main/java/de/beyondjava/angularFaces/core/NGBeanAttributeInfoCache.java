@@ -0,0 +1,195 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.faces.application.Application;
+import javax.faces.context.FacesContext;
+import javax.faces.event.AbortProcessingException;
+import javax.faces.event.PostConstructApplicationEvent;
+import javax.faces.event.PreDestroyApplicationEvent;
+import javax.faces.event.SystemEvent;
+import javax.faces.event.SystemEventListener;
+
+/**
+ * Caches the NGBeanAttributeInfo of each bean property. The information only depends on the class and the name of the property, so it
+ * doesn't contain the expression of the component that caused it to be read. The number of entries is limited by the context
+ * parameter <code>de.beyondjava.angularFaces.BEAN_INFO_CACHE_SIZE</code>; when it's exceeded, the least recently used entry is
+ * evicted. The cache is guarded by a simple lock: it's consulted once per distinct bean property of a view, and the annotations are
+ * read outside the lock. The limit is read when the application is started, because the cache is also used by threads without a FacesContext. The cache is cleared
+ * when the application is shut down, so it doesn't keep the classes of an undeployed application alive if AngularFaces is installed
+ * as a shared library.
+ */
+public class NGBeanAttributeInfoCache implements SystemEventListener {
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.NGBeanAttributeInfoCache");
+
+	public static final String BEAN_INFO_CACHE_SIZE = "de.beyondjava.angularFaces.BEAN_INFO_CACHE_SIZE";
+
+	private static final int DEFAULT_SIZE = 10000;
+
+	/** The maximum number of entries, or -1 if the context parameter hasn't been read yet. */
+	private static volatile int maximumSize = -1;
+
+	/** access-ordered, so the eldest entry is the least recently used one */
+	private static final LinkedHashMap<BeanProperty, NGBeanAttributeInfo> infos = new LinkedHashMap<BeanProperty, NGBeanAttributeInfo>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<BeanProperty, NGBeanAttributeInfo> eldest) {
+			if (size() > getMaximumSize()) {
+				evictions.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+	};
+
+	private static final AtomicLong hits = new AtomicLong();
+
+	private static final AtomicLong misses = new AtomicLong();
+
+	private static final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Returns the validation and layout information of a bean property, reading it if it isn't cached yet. Doesn't need a
+	 * FacesContext, so it can be called by any thread.
+	 * 
+	 * @param property
+	 *            the bean property
+	 * @return the JSR 303 annotations and the type of the property
+	 */
+	public static NGBeanAttributeInfo get(BeanProperty property) {
+		NGBeanAttributeInfo info;
+		synchronized (infos) {
+			info = infos.get(property);
+		}
+		if (null != info) {
+			hits.incrementAndGet();
+			return info;
+		}
+		misses.incrementAndGet();
+		// concurrent callers may read the annotations twice, but they get the same result
+		info = new NGBeanAttributeInfo(property);
+		synchronized (infos) {
+			NGBeanAttributeInfo previous = infos.get(property);
+			if (null != previous) {
+				return previous;
+			}
+			infos.put(property, info);
+		}
+		return info;
+	}
+
+	/**
+	 * Returns the validation and layout information of a bean property if it has already been read.
+	 * 
+	 * @param property
+	 *            the bean property
+	 * @return null if the information isn't cached. In this case, the lookup doesn't count as a miss.
+	 */
+	public static NGBeanAttributeInfo getIfCached(BeanProperty property) {
+		NGBeanAttributeInfo info;
+		synchronized (infos) {
+			info = infos.get(property);
+		}
+		if (null != info) {
+			hits.incrementAndGet();
+		}
+		return info;
+	}
+
+	private static int getMaximumSize() {
+		if (maximumSize < 0) {
+			// the limit is usually read at startup. Threads that don't have a FacesContext can't read it.
+			FacesContext context = FacesContext.getCurrentInstance();
+			if (null == context) {
+				return DEFAULT_SIZE;
+			}
+			readMaximumSize(context);
+		}
+		return maximumSize;
+	}
+
+	private static void readMaximumSize(FacesContext context) {
+		String size = context.getExternalContext().getInitParameter(BEAN_INFO_CACHE_SIZE);
+		int limit = DEFAULT_SIZE;
+		if (null != size && size.trim().length() > 0) {
+			try {
+				limit = Math.max(Integer.parseInt(size.trim()), 1);
+			} catch (NumberFormatException e) {
+				LOGGER.severe("The context parameter " + BEAN_INFO_CACHE_SIZE + " has to be a number: " + size);
+			}
+		}
+		maximumSize = limit;
+	}
+
+	/** Removes every entry, e.g. after a redeployment. The statistics aren't reset. */
+	public static void clear() {
+		synchronized (infos) {
+			infos.clear();
+		}
+	}
+
+	/** @return the number of entries */
+	public static int size() {
+		synchronized (infos) {
+			return infos.size();
+		}
+	}
+
+	/** @return the number of requests that have been answered from the cache */
+	public static long getHits() {
+		return hits.get();
+	}
+
+	/** @return the number of requests that had to read the annotations */
+	public static long getMisses() {
+		return misses.get();
+	}
+
+	/** @return the number of entries removed because the cache was full */
+	public static long getEvictions() {
+		return evictions.get();
+	}
+
+	/** @return hits, misses, evictions and size in a human-readable form */
+	public static String getStatistics() {
+		return "NGBeanAttributeInfo cache: " + hits.get() + " hits, " + misses.get() + " misses, " + evictions.get() + " evictions, "
+				+ size() + " entries";
+	}
+
+	@Override
+	public boolean isListenerForSource(Object source) {
+		return source instanceof Application;
+	}
+
+	@Override
+	public void processEvent(SystemEvent event) throws AbortProcessingException {
+		if (event instanceof PostConstructApplicationEvent) {
+			readMaximumSize(FacesContext.getCurrentInstance());
+		} else if (event instanceof PreDestroyApplicationEvent) {
+			LOGGER.fine(getStatistics());
+			clear();
+			maximumSize = -1;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The reflective information about a bean property: its field, its getter, its type and its annotations. It's read once per property.
+ * The table of a class is attached to the class by a ClassValue, so it's unloaded together with the class when the application is
+ * redeployed.
+ */
+final class PropertyMetadata {
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.PropertyMetadata");
+
+	/** The properties of a class, resolved on demand. */
+	private static final class ClassMetadata {
+		/** The fields of the class and its super classes. Fields of a sub class hide the fields of the super class. */
+		private final Map<String, Field> fields = new HashMap<String, Field>();
+
+		/** The public methods without parameters, including the inherited methods. */
+		private final Map<String, Method> methods = new HashMap<String, Method>();
+
+		private final ConcurrentMap<String, PropertyMetadata> properties = new ConcurrentHashMap<String, PropertyMetadata>();
+
+		private ClassMetadata(Class<?> type) {
+			try {
+				for (Class<?> c = type; null != c; c = c.getSuperclass()) {
+					for (Field field : c.getDeclaredFields()) {
+						if (!fields.containsKey(field.getName())) {
+							fields.put(field.getName(), field);
+						}
+					}
+				}
+				for (Method method : type.getMethods()) {
+					// bridge methods such as Object getId() of a generic interface would hide the real getter
+					if (method.getParameterTypes().length == 0 && !Modifier.isStatic(method.getModifiers()) && !method.isBridge()
+							&& !method.isSynthetic()) {
+						Method known = methods.get(method.getName());
+						if (null == known || known.getReturnType().isAssignableFrom(method.getReturnType())) {
+							methods.put(method.getName(), method);
+						}
+					}
+				}
+			} catch (SecurityException e) {
+				LOGGER.log(Level.SEVERE, "Unable to access the fields and getters of " + type.getName(), e);
+			}
+		}
+
+		private PropertyMetadata getProperty(String name) {
+			PropertyMetadata property = properties.get(name);
+			if (null == property) {
+				property = new PropertyMetadata(this, name);
+				PropertyMetadata previous = properties.putIfAbsent(name, property);
+				if (null != previous) {
+					property = previous;
+				}
+			}
+			return property;
+		}
+	}
+
+	private static final ClassValue<ClassMetadata> CLASS_METADATA = new ClassValue<ClassMetadata>() {
+		@Override
+		protected ClassMetadata computeValue(Class<?> type) {
+			return new ClassMetadata(type);
+		}
+	};
+
+	private final Field field;
+
+	private final Method getter;
+
+	private final Annotation[] annotations;
+
+	private PropertyMetadata(ClassMetadata metadata, String name) {
+		field = metadata.fields.get(name);
+		String capitalized = name.length() == 0 ? name : name.substring(0, 1).toUpperCase() + name.substring(1);
+		Method method = metadata.methods.get("get" + capitalized);
+		if (null == method) {
+			method = metadata.methods.get("is" + capitalized);
+		}
+		getter = method;
+		annotations = mergeAnnotations(field, getter);
+	}
+
+	/** @return the annotations of the field, followed by the annotations of the getter the field doesn't have, or null */
+	private static Annotation[] mergeAnnotations(Field field, Method getter) {
+		if (null == getter) {
+			return null == field ? null : field.getAnnotations();
+		}
+		if (null == field) {
+			return getter.getAnnotations();
+		}
+		List<Annotation> merged = new ArrayList<Annotation>();
+		for (Annotation a : field.getAnnotations()) {
+			merged.add(a);
+		}
+		for (Annotation a : getter.getAnnotations()) {
+			if (null == field.getAnnotation(a.annotationType())) {
+				merged.add(a);
+			}
+		}
+		return merged.toArray(new Annotation[merged.size()]);
+	}
+
+	/**
+	 * Returns the metadata of a bean property. Doesn't need a FacesContext, so it can be called by any thread.
+	 * 
+	 * @param c
+	 *            the class of the bean
+	 * @param property
+	 *            the name of the property
+	 * @return the metadata, which is never null. Its members are null if the property doesn't exist.
+	 */
+	static PropertyMetadata get(Class<?> c, String property) {
+		return CLASS_METADATA.get(c).getProperty(property);
+	}
+
+	/** @return the field of the property, which may be declared by a super class, or null */
+	Field getField() {
+		return field;
+	}
+
+	/** @return the public getter (getXxx() or isXxx()), or null */
+	Method getGetter() {
+		return getter;
+	}
+
+	/** @return the return type of the getter, or null if there's no getter */
+	Class<?> getType() {
+		return null == getter ? null : getter.getReturnType();
+	}
+
+	/** @return the annotations of the field and the getter, or null if there's neither a field nor a getter */
+	Annotation[] getAnnotations() {
+		return annotations;
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.el.ELContext;
+import javax.el.ValueExpression;
+import javax.el.VariableMapper;
+import javax.faces.application.Application;
+import javax.faces.context.FacesContext;
+import javax.faces.event.AbortProcessingException;
+import javax.faces.event.PreDestroyApplicationEvent;
+import javax.faces.event.SystemEvent;
+import javax.faces.event.SystemEventListener;
+
+/**
+ * Caches the ValueExpressions parsed by the ELTools, so an expression like #{i18n} is parsed only once. A ValueExpression is only
+ * reused if it doesn't depend on the ELContext it has been created with: EL functions and variables defined by Facelets (ui:param,
+ * c:set, ...) are resolved while the expression is parsed, so such expressions are never cached. The number of entries is limited by
+ * the context parameter <code>de.beyondjava.angularFaces.EXPRESSION_CACHE_SIZE</code>.
+ */
+public class ValueExpressionCache implements SystemEventListener {
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.ValueExpressionCache");
+
+	public static final String EXPRESSION_CACHE_SIZE = "de.beyondjava.angularFaces.EXPRESSION_CACHE_SIZE";
+
+	private static final int DEFAULT_SIZE = 1000;
+
+	/** Identifiers that aren't preceded by a dot, i.e. beans and variables as opposed to properties. */
+	private static final Pattern IDENTIFIER = Pattern.compile("(?<![\\w$.])[a-zA-Z_$][\\w$]*");
+
+	/** The key of the cache: the expression and the type it's coerced to. */
+	private static final class Key {
+		private final String expression;
+		private final Class<?> expectedType;
+
+		private Key(String expression, Class<?> expectedType) {
+			this.expression = expression;
+			this.expectedType = expectedType;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return expectedType == other.expectedType && expression.equals(other.expression);
+		}
+
+		@Override
+		public int hashCode() {
+			return expression.hashCode() * 31 + expectedType.hashCode();
+		}
+	}
+
+	/** The maximum number of entries, or -1 if the context parameter hasn't been read yet. */
+	private static volatile int maximumSize = -1;
+
+	private static final ConcurrentMap<Key, ValueExpression> expressions = new ConcurrentHashMap<Key, ValueExpression>();
+
+	private static final AtomicLong hits = new AtomicLong();
+
+	private static final AtomicLong misses = new AtomicLong();
+
+	private static final AtomicLong uncacheable = new AtomicLong();
+
+	/**
+	 * Returns the parsed ValueExpression, parsing it only if it isn't cached yet or if it can't be reused.
+	 * 
+	 * @param context
+	 *            the current FacesContext
+	 * @param expression
+	 *            the EL expression, including the leading "#{" and the trailing brace
+	 * @param expectedType
+	 *            the type the result is coerced to
+	 */
+	public static ValueExpression get(FacesContext context, String expression, Class<?> expectedType) {
+		ELContext elContext = context.getELContext();
+		if (!isReusable(elContext, expression)) {
+			uncacheable.incrementAndGet();
+			return context.getApplication().getExpressionFactory().createValueExpression(elContext, expression, expectedType);
+		}
+		Key key = new Key(expression, expectedType);
+		ValueExpression vex = expressions.get(key);
+		if (null != vex) {
+			hits.incrementAndGet();
+			return vex;
+		}
+		misses.incrementAndGet();
+		vex = context.getApplication().getExpressionFactory().createValueExpression(elContext, expression, expectedType);
+		if (null == expressions.putIfAbsent(key, vex)) {
+			evictIfNecessary(context);
+		}
+		return vex;
+	}
+
+	/**
+	 * Can the expression be used with other ELContexts? That's not the case if it contains an EL function or a variable defined by the
+	 * ELContext. Colons are rejected altogether, so the conditional operator isn't cached either.
+	 */
+	private static boolean isReusable(ELContext elContext, String expression) {
+		if (expression.indexOf(':') >= 0) {
+			return false;
+		}
+		VariableMapper variables = elContext.getVariableMapper();
+		if (null == variables) {
+			return true;
+		}
+		Matcher matcher = IDENTIFIER.matcher(expression);
+		while (matcher.find()) {
+			if (null != variables.resolveVariable(matcher.group())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void evictIfNecessary(FacesContext context) {
+		int limit = getMaximumSize(context);
+		if (expressions.size() <= limit) {
+			return;
+		}
+		Iterator<Key> keys = expressions.keySet().iterator();
+		while (expressions.size() > limit && keys.hasNext()) {
+			keys.next();
+			keys.remove();
+		}
+	}
+
+	private static int getMaximumSize(FacesContext context) {
+		if (maximumSize < 0) {
+			String size = context.getExternalContext().getInitParameter(EXPRESSION_CACHE_SIZE);
+			int limit = DEFAULT_SIZE;
+			if (null != size && size.trim().length() > 0) {
+				try {
+					limit = Math.max(Integer.parseInt(size.trim()), 1);
+				} catch (NumberFormatException e) {
+					LOGGER.severe("The context parameter " + EXPRESSION_CACHE_SIZE + " has to be a number: " + size);
+				}
+			}
+			maximumSize = limit;
+		}
+		return maximumSize;
+	}
+
+	/** Removes every entry. The statistics aren't reset. */
+	public static void clear() {
+		expressions.clear();
+	}
+
+	/** @return the number of expressions taken from the cache */
+	public static long getHits() {
+		return hits.get();
+	}
+
+	/** @return the number of cacheable expressions that had to be parsed */
+	public static long getMisses() {
+		return misses.get();
+	}
+
+	/** @return the number of expressions that couldn't be cached because they depend on the ELContext */
+	public static long getUncacheable() {
+		return uncacheable.get();
+	}
+
+	/** @return the share of the expressions taken from the cache, between 0 and 1 */
+	public static double getHitRate() {
+		long h = hits.get();
+		long total = h + misses.get() + uncacheable.get();
+		return total == 0 ? 0.0d : (double) h / total;
+	}
+
+	/** @return hits, misses, uncacheable expressions and the hit rate in a human-readable form */
+	public static String getStatistics() {
+		return "ValueExpression cache: " + hits.get() + " hits, " + misses.get() + " misses, " + uncacheable.get() + " uncacheable, "
+				+ Math.round(getHitRate() * 100) + "% hit rate, " + expressions.size() + " entries";
+	}
+
+	@Override
+	public boolean isListenerForSource(Object source) {
+		return source instanceof Application;
+	}
+
+	@Override
+	public void processEvent(SystemEvent event) throws AbortProcessingException {
+		if (event instanceof PreDestroyApplicationEvent) {
+			LOGGER.fine(getStatistics());
+			clear();
+			maximumSize = -1;
+		}
+	}
+}
@@ -24,9 +24,13 @@ import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
 
 import javax.annotation.PostConstruct;
+import javax.faces.application.ProjectStage;
 import javax.faces.bean.ManagedBean;
 import javax.faces.bean.ViewScoped;
 import javax.faces.context.FacesContext;
@@ -43,11 +47,59 @@ public class I18n implements Serializable {
 	HashMap<String, String> translations = new HashMap<String, String>();
 	String json = "";
 
+	/**
+	 * Application map attribute containing the message bundles of the languages requested so far. They're read only once per locale
+	 * and application, unless the project stage is Development.
+	 */
+	private static final String MESSAGE_BUNDLES = "de.beyondjava.angularFaces.messageBundles";
+
+	/** The translations of a language, both as map and as JSON string. */
+	private static final class CompiledMessageBundle {
+		private final HashMap<String, String> translations;
+		private final String json;
+
+		private CompiledMessageBundle(HashMap<String, String> translations, String json) {
+			this.translations = translations;
+			this.json = json;
+		}
+	}
+
 	@PostConstruct
 	public void loadMessageBundles() {
 		FacesContext context = FacesContext.getCurrentInstance();
 		locale = context.getExternalContext().getRequestLocale();
 		// locale = context.getViewRoot().getLocale();
+		if (context.isProjectStage(ProjectStage.Development)) {
+			// the message files may have been edited
+			readMessageBundle();
+			return;
+		}
+		ConcurrentMap<Locale, CompiledMessageBundle> messageBundles = getMessageBundles(context);
+		CompiledMessageBundle bundle = messageBundles.get(locale);
+		if (null == bundle) {
+			readMessageBundle();
+			messageBundles.putIfAbsent(locale, new CompiledMessageBundle(translations, json));
+		} else {
+			// the bundle is shared by every view, so it mustn't be modified
+			translations = bundle.translations;
+			json = bundle.json;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ConcurrentMap<Locale, CompiledMessageBundle> getMessageBundles(FacesContext context) {
+		Map<String, Object> applicationMap = context.getExternalContext().getApplicationMap();
+		ConcurrentMap<Locale, CompiledMessageBundle> messageBundles = (ConcurrentMap<Locale, CompiledMessageBundle>) applicationMap
+				.get(MESSAGE_BUNDLES);
+		if (null == messageBundles) {
+			// concurrent callers may create the map twice. That only costs reading a message bundle once more.
+			messageBundles = new ConcurrentHashMap<Locale, CompiledMessageBundle>();
+			applicationMap.put(MESSAGE_BUNDLES, messageBundles);
+		}
+		return messageBundles;
+	}
+
+	private void readMessageBundle() {
 		String language = locale.getLanguage();
 		String country = locale.getCountry();
 		InputStream i18n = getClass().getClassLoader().getResourceAsStream("i18n_" + language + "_" + country + ".properties");
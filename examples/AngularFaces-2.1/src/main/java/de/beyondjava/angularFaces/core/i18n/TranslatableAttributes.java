@@ -0,0 +1,67 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.i18n;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Knows which attributes contain texts to be translated. Literal texts are compiled into translation expressions when the facelet is
+ * decorated. Only the texts computed by value expressions have to be translated at runtime.
+ */
+public final class TranslatableAttributes {
+	/** Attributes containing texts to be translated. The value attribute of outputs and commands is translated, too. */
+	public static final Set<String> ATTRIBUTES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList("header", "headerText",
+			"addLabel", "addAllLabel", "cancelLabel", "closeTitle", "collapseTitle", "converterMessage", "emptyLabel", "expandTitle",
+			"fileLimitMessage", "goodLabel", "iframeTitle", "invalidFileMessage", "invalidSizeMessage", "itemLabel", "label", "menuTitle",
+			"message", "moveButtomLabel", "moveDownLabel", "moveUpLabel", "moveTopLabel", "removeAllLabel", "removeLabel", "removeFrom",
+			"requiredMessage", "resizeTitle", "saveLabel", "summary", "titletip", "toggleTitle", "tooltip", "uploadLabel",
+			"validatorMessage", "welcomeMessage")));
+
+	/** Tags whose literal value attribute is a caption. */
+	public static final Set<String> CAPTION_TAGS = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList("outputText",
+			"outputLabel", "outputFormat", "commandButton", "commandLink", "button", "link", "menuitem")));
+
+	private static final String TRANSLATION_EXPRESSION_PREFIX = "#{i18n.translate('";
+
+	private TranslatableAttributes() {
+	}
+
+	/**
+	 * Converts a literal text into an expression translating it to the language of the current view.
+	 * 
+	 * @param caption
+	 *            the text written in the facelet
+	 * @return an EL expression
+	 */
+	public static String toTranslationExpression(String caption) {
+		return TRANSLATION_EXPRESSION_PREFIX + caption.replace("\\", "\\\\").replace("'", "\\'") + "')}";
+	}
+
+	/**
+	 * Has the expression been generated by {@link #toTranslationExpression(String)}?
+	 * 
+	 * @param expression
+	 *            an EL expression
+	 * @return true if the expression already translates a text
+	 */
+	public static boolean isTranslationExpression(String expression) {
+		return null != expression && expression.startsWith(TRANSLATION_EXPRESSION_PREFIX);
+	}
+}
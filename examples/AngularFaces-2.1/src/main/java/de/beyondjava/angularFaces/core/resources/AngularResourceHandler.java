@@ -0,0 +1,135 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.resources;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.faces.application.Resource;
+import javax.faces.application.ResourceHandler;
+import javax.faces.application.ResourceHandlerWrapper;
+import javax.faces.context.ExternalContext;
+import javax.faces.context.FacesContext;
+
+/** Delivers the AngularFaces script bundle. Every other resource is handled by the wrapped resource handler. */
+public class AngularResourceHandler extends ResourceHandlerWrapper {
+	/** Browsers may cache the bundle forever because its name changes when the content changes. */
+	static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+	private ResourceHandler wrappedResourceHandler;
+
+	public AngularResourceHandler(ResourceHandler resourceHandler) {
+		this.wrappedResourceHandler = resourceHandler;
+	}
+
+	@Override
+	public ResourceHandler getWrapped() {
+		return wrappedResourceHandler;
+	}
+
+	@Override
+	public Resource createResource(String resourceName, String libraryName) {
+		if (ScriptBundle.LIBRARY.equals(libraryName) && ScriptBundle.isBundleName(resourceName)) {
+			FacesContext context = FacesContext.getCurrentInstance();
+			ScriptBundle bundle = ScriptBundle.findBundle(context, resourceName);
+			Resource template = wrappedResourceHandler.createResource("angularfaces-core.js", ScriptBundle.LIBRARY);
+			if (null != bundle && null != template) {
+				return new ScriptBundleResource(bundle, template);
+			}
+		}
+		return wrappedResourceHandler.createResource(resourceName, libraryName);
+	}
+
+	@Override
+	public Resource createResource(String resourceName) {
+		return wrappedResourceHandler.createResource(resourceName);
+	}
+
+	@Override
+	public Resource createResource(String resourceName, String libraryName, String contentType) {
+		return wrappedResourceHandler.createResource(resourceName, libraryName, contentType);
+	}
+
+	@Override
+	public boolean isResourceRequest(FacesContext context) {
+		return wrappedResourceHandler.isResourceRequest(context);
+	}
+
+	@Override
+	public boolean libraryExists(String libraryName) {
+		return wrappedResourceHandler.libraryExists(libraryName);
+	}
+
+	@Override
+	public String getRendererTypeForResourceName(String resourceName) {
+		return wrappedResourceHandler.getRendererTypeForResourceName(resourceName);
+	}
+
+	@Override
+	public void handleResourceRequest(FacesContext context) throws IOException {
+		ExternalContext external = context.getExternalContext();
+		ScriptBundle bundle = null;
+		if (ScriptBundle.LIBRARY.equals(external.getRequestParameterMap().get("ln"))) {
+			String name = getRequestedResourceName(external);
+			if (ScriptBundle.isBundleName(name)) {
+				bundle = ScriptBundle.findBundle(context, name);
+			}
+		}
+		if (null == bundle) {
+			wrappedResourceHandler.handleResourceRequest(context);
+			return;
+		}
+		String etag = "\"" + bundle.getHash() + "\"";
+		external.setResponseHeader("Cache-Control", IMMUTABLE);
+		external.setResponseHeader("ETag", etag);
+		external.setResponseHeader("Vary", "Accept-Encoding");
+		if (etag.equals(external.getRequestHeaderMap().get("If-None-Match"))) {
+			external.setResponseStatus(304);
+			return;
+		}
+		external.setResponseContentType("application/javascript;charset=UTF-8");
+		byte[] content = bundle.getContent();
+		String acceptEncoding = external.getRequestHeaderMap().get("Accept-Encoding");
+		if (null != acceptEncoding && acceptEncoding.contains("gzip")) {
+			external.setResponseHeader("Content-Encoding", "gzip");
+			content = bundle.getGzippedContent();
+		}
+		external.setResponseContentLength(content.length);
+		OutputStream out = external.getResponseOutputStream();
+		out.write(content);
+		out.flush();
+	}
+
+	/**
+	 * Extracts the name of the requested resource. Works both with prefix mapping (/faces/javax.faces.resource/name.js) and with
+	 * suffix mapping (/javax.faces.resource/name.js.xhtml).
+	 * 
+	 * @return null if the name can't be found
+	 */
+	private String getRequestedResourceName(ExternalContext external) {
+		String path = external.getRequestPathInfo();
+		if (null == path || !path.startsWith(RESOURCE_IDENTIFIER)) {
+			path = external.getRequestServletPath();
+		}
+		if (null == path || !path.startsWith(RESOURCE_IDENTIFIER + "/")) {
+			return null;
+		}
+		String name = path.substring(RESOURCE_IDENTIFIER.length() + 1);
+		int end = name.indexOf(".js");
+		return end < 0 ? name : name.substring(0, end + 3);
+	}
+}
@@ -0,0 +1,265 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.resources;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import javax.faces.application.Resource;
+import javax.faces.application.ResourceHandler;
+import javax.faces.context.FacesContext;
+
+import de.beyondjava.angularFaces.core.ContextParameters;
+
+/**
+ * The JavaScript files required by AngularFaces, concatenated to a single file per project stage and language. Views that don't need
+ * the directives get a bundle without the directives and the messages of the client-side validation. The name of the bundle
+ * contains a hash of its content, so browsers may cache it forever. The bundle is gzipped once, when it's first requested, not at
+ * build time: its content depends on the JavaScript files of the libraries on the class path. Brotli isn't offered, because the JDK
+ * doesn't contain a Brotli encoder.
+ */
+public class ScriptBundle {
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.resources.ScriptBundle");
+
+	/**
+	 * Context parameter: if true, the JavaScript files are delivered as a single bundle instead of seven separate files.
+	 */
+	public static final String SCRIPT_BUNDLE = "de.beyondjava.angularFaces.SCRIPT_BUNDLE";
+
+	/** The library of the bundle. */
+	public static final String LIBRARY = "AngularFaces";
+
+	private static final String PREFIX = "angularfaces-bundle-";
+
+	/** Replaces the language in the name of bundles without directives. */
+	private static final String WITHOUT_DIRECTIVES = "core";
+
+	private static final Pattern NAME_PATTERN = Pattern.compile(PREFIX + "(min-)?([a-zA-Z]+)-[0-9a-f]+\\.js");
+
+	/** ISO 639 language codes, as returned by Locale.getLanguage(). */
+	private static final Pattern LANGUAGE_PATTERN = Pattern.compile("[a-z]{2,3}");
+
+	/** The language of the messages used if there are no messages in the language of the user. */
+	private static final String DEFAULT_LANGUAGE = "en";
+
+	/**
+	 * The language of the messages of the client-side validation (messages_xx.js) delivered for each requested language. The keys
+	 * are restricted to ISO 639 codes, so the map can't grow beyond a few thousand entries.
+	 */
+	private static final ConcurrentMap<String, String> messagesLanguages = new ConcurrentHashMap<String, String>();
+
+	/** Library and name of the files of the bundle in development mode, in the order they're executed. */
+	private static final String[][] DEVELOPMENT_SCRIPTS = { { "jQuery", "jquery-1.11.1.js" }, { "AngularJS", "angular.js" },
+			{ "AngularJS", "angular-messages.js" }, { "AngularFaces", "angularfaces-core.js" }, { "AngularFaces", "jua-0.1.0.js" } };
+
+	/** Library and name of the files of the bundle in production mode, in the order they're executed. */
+	private static final String[][] PRODUCTION_SCRIPTS = { { "jQuery", "jquery.min-1.11.1.js" }, { "AngularJS", "angular.min.js" },
+			{ "AngularJS", "angular-messages.min.js" }, { "AngularFaces", "angularfaces.all.min.js" },
+			{ "AngularFaces", "jua-0.1.0-min.js" } };
+
+	/**
+	 * The bundles, both by their key (project stage and language) and by their name. There's a bundle for every language there are
+	 * messages for, so the map is bounded by the number of messages_xx.js files.
+	 */
+	private static final ConcurrentMap<String, ScriptBundle> bundles = new ConcurrentHashMap<String, ScriptBundle>();
+
+	private final String name;
+
+	private final byte[] content;
+
+	private final byte[] gzippedContent;
+
+	private final String hash;
+
+	private ScriptBundle(String name, byte[] content, byte[] gzippedContent, String hash) {
+		this.name = name;
+		this.content = content;
+		this.gzippedContent = gzippedContent;
+		this.hash = hash;
+	}
+
+	/**
+	 * Are the JavaScript files delivered as a bundle?
+	 * 
+	 * @param context
+	 *            the current FacesContext
+	 * @return the value of the context parameter SCRIPT_BUNDLE
+	 */
+	public static boolean isEnabled(FacesContext context) {
+		return ContextParameters.isTrue(context, SCRIPT_BUNDLE);
+	}
+
+	/**
+	 * Returns the bundle of a project stage and a language, creating it if necessary.
+	 * 
+	 * @param requestedLanguage
+	 *            the language of the messages of the client-side validation, or null if the view doesn't need the directives. If
+	 *            there are no messages in this language, the bundle contains the English messages.
+	 */
+	public static ScriptBundle getBundle(FacesContext context, boolean isProduction, String requestedLanguage) {
+		String language = null == requestedLanguage ? null : getMessagesLanguage(context, requestedLanguage);
+		String key = (isProduction ? "min-" : "") + (null == language ? WITHOUT_DIRECTIVES : language);
+		ScriptBundle bundle = bundles.get(key);
+		if (null == bundle) {
+			bundle = createBundle(context, isProduction, language);
+			ScriptBundle previous = bundles.putIfAbsent(key, bundle);
+			if (null != previous) {
+				bundle = previous;
+			} else {
+				bundles.put(bundle.getName(), bundle);
+			}
+		}
+		return bundle;
+	}
+
+	/**
+	 * Finds a bundle by its name. If it hasn't been created yet - for instance, because the page has been rendered by another node of
+	 * the cluster - it's created.
+	 * 
+	 * @return null if there's no such bundle, or if its content has changed
+	 */
+	public static ScriptBundle findBundle(FacesContext context, String name) {
+		ScriptBundle bundle = bundles.get(name);
+		if (null == bundle) {
+			Matcher matcher = NAME_PATTERN.matcher(name);
+			if (matcher.matches()) {
+				String language = WITHOUT_DIRECTIVES.equals(matcher.group(2)) ? null : matcher.group(2);
+				bundle = getBundle(context, null != matcher.group(1), language);
+				if (!name.equals(bundle.getName())) {
+					return null;
+				}
+			}
+		}
+		return bundle;
+	}
+
+	/**
+	 * Returns the language of the messages of the client-side validation. If there are no messages in the requested language, the
+	 * English messages are used.
+	 * 
+	 * @param language
+	 *            the language requested by the browser, or a language taken from the name of a bundle
+	 * @return the language of an existing messages_xx.js file
+	 */
+	public static String getMessagesLanguage(FacesContext context, String language) {
+		if (null == language || !LANGUAGE_PATTERN.matcher(language).matches()) {
+			return DEFAULT_LANGUAGE;
+		}
+		String messagesLanguage = messagesLanguages.get(language);
+		if (null == messagesLanguage) {
+			Resource messages = context.getApplication().getResourceHandler().createResource("messages_" + language + ".js", LIBRARY);
+			messagesLanguage = null == messages ? DEFAULT_LANGUAGE : language;
+			messagesLanguages.putIfAbsent(language, messagesLanguage);
+		}
+		return messagesLanguage;
+	}
+
+	/** @return true if the file name may be the name of a bundle */
+	public static boolean isBundleName(String name) {
+		return null != name && name.startsWith(PREFIX);
+	}
+
+	private static ScriptBundle createBundle(FacesContext context, boolean isProduction, String language) {
+		long timer = System.nanoTime();
+		ResourceHandler resourceHandler = context.getApplication().getResourceHandler();
+		ByteArrayOutputStream bundle = new ByteArrayOutputStream();
+		String[][] scripts = isProduction ? PRODUCTION_SCRIPTS : DEVELOPMENT_SCRIPTS;
+		try {
+			for (String[] script : scripts) {
+				append(resourceHandler, script[0], script[1], bundle);
+			}
+			if (null != language) {
+				if (!isProduction) {
+					// the production version of the core contains the directives
+					append(resourceHandler, LIBRARY, "angularfaces-directives.js", bundle);
+				}
+				append(resourceHandler, LIBRARY, "messages_" + language + ".js", bundle);
+			}
+			byte[] content = bundle.toByteArray();
+			ByteArrayOutputStream gzipped = new ByteArrayOutputStream(content.length / 3);
+			GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+			gzip.write(content);
+			gzip.close();
+			String hash = hash(content);
+			String name = PREFIX + (isProduction ? "min-" : "") + (null == language ? WITHOUT_DIRECTIVES : language) + "-" + hash + ".js";
+			LOGGER.fine(((System.nanoTime() - timer) / 1000) / 1000.0d + " ms creating " + name + " (" + content.length + " bytes, "
+					+ gzipped.size() + " bytes compressed)");
+			return new ScriptBundle(name, content, gzipped.toByteArray(), hash);
+		} catch (IOException e) {
+			throw new IllegalStateException("Couldn't create the AngularFaces script bundle", e);
+		}
+	}
+
+	private static void append(ResourceHandler resourceHandler, String library, String name, ByteArrayOutputStream bundle)
+			throws IOException {
+		Resource resource = resourceHandler.createResource(name, library);
+		if (null == resource) {
+			LOGGER.warning("The script bundle doesn't contain " + library + "/" + name + " because it doesn't exist.");
+			return;
+		}
+		InputStream in = resource.getInputStream();
+		try {
+			byte[] buffer = new byte[8192];
+			int length;
+			while ((length = in.read(buffer)) > 0) {
+				bundle.write(buffer, 0, length);
+			}
+		} finally {
+			in.close();
+		}
+		// a file that isn't terminated properly mustn't break the next one
+		bundle.write(";\n".getBytes("UTF-8"));
+	}
+
+	private static String hash(byte[] content) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+			StringBuilder hash = new StringBuilder();
+			for (int i = 0; i < 8; i++) {
+				hash.append(String.format("%02x", digest[i]));
+			}
+			return hash.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Every JVM supports SHA-256", e);
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public byte[] getContent() {
+		return content;
+	}
+
+	public byte[] getGzippedContent() {
+		return gzippedContent;
+	}
+
+	public String getHash() {
+		return hash;
+	}
+}
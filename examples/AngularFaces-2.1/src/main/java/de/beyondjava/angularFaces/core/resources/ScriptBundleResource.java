@@ -0,0 +1,73 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.resources;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.faces.application.Resource;
+import javax.faces.context.FacesContext;
+
+/** The resource representing a script bundle. It's used to render the script tag of the bundle. */
+public class ScriptBundleResource extends Resource {
+	private final ScriptBundle bundle;
+
+	/** An arbitrary resource of the AngularFaces library, used to find out how resource URLs look like. */
+	private final Resource template;
+
+	public ScriptBundleResource(ScriptBundle bundle, Resource template) {
+		this.bundle = bundle;
+		this.template = template;
+		setLibraryName(ScriptBundle.LIBRARY);
+		setResourceName(bundle.getName());
+		setContentType("application/javascript");
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		return new ByteArrayInputStream(bundle.getContent());
+	}
+
+	@Override
+	public Map<String, String> getResponseHeaders() {
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put("Cache-Control", AngularResourceHandler.IMMUTABLE);
+		headers.put("ETag", "\"" + bundle.getHash() + "\"");
+		return headers;
+	}
+
+	/** @return the URL of the template resource, with the name of the bundle instead of the name of the template */
+	@Override
+	public String getRequestPath() {
+		String path = template.getRequestPath();
+		return path.replace(template.getResourceName(), bundle.getName());
+	}
+
+	@Override
+	public URL getURL() {
+		return null;
+	}
+
+	@Override
+	public boolean userAgentNeedsUpdate(FacesContext context) {
+		// the name changes when the content changes
+		return false;
+	}
+}
@@ -19,6 +19,7 @@ package de.beyondjava.angularFaces.core.tagTransformer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,32 +29,89 @@ import javax.faces.view.facelets.TagAttribute;
 import javax.faces.view.facelets.TagAttributes;
 
 /**
- * Alternative - simpler, more flexible, less optimized - version of TagAttributesImpl.
+ * Alternative - simpler, more flexible - version of TagAttributesImpl. The set of attributes is fixed when the instance is created:
+ * use the {@link Builder} to add attributes. The lookup tables Facelets needs while constructing the tag handlers are computed once,
+ * when the instance is created.
+ * <p>
+ * Like TagAttributesImpl, the instance isn't immutable. It takes ownership of the array passed to the constructor, and the getters
+ * return the internal arrays without copying them, because Facelets calls them for every tag. Callers must not modify the arrays.
+ * {@link #setTag(Tag)}, which Facelets calls to attach the attributes to their tag, modifies the attributes, too.
  */
 public final class AFTagAttributes extends TagAttributes {
 
-    private TagAttribute[] attrs;
+    private static final TagAttribute[] EMPTY = new TagAttribute[0];
+
+    private final TagAttribute[] attrs;
+
+    /** namespace -> local name -> attribute */
+    private final Map<String, Map<String, TagAttribute>> index;
+
+    /** namespace -> attributes of this namespace */
+    private final Map<String, TagAttribute[]> attributesByNamespace;
+
+    private final String[] namespaces;
 
     private Tag tag;
 
     public AFTagAttributes(TagAttribute[] attrs) {
-        init(attrs);
+        this.attrs = attrs;
+        Map<String, List<TagAttribute>> lists = new LinkedHashMap<String, List<TagAttribute>>();
+        this.index = new HashMap<String, Map<String, TagAttribute>>();
+        for (TagAttribute a : attrs) {
+            String namespace = a.getNamespace();
+            List<TagAttribute> list = lists.get(namespace);
+            Map<String, TagAttribute> byName = index.get(namespace);
+            if (null == list) {
+                list = new ArrayList<TagAttribute>();
+                lists.put(namespace, list);
+                byName = new HashMap<String, TagAttribute>();
+                index.put(namespace, byName);
+            }
+            list.add(a);
+            if (!byName.containsKey(a.getLocalName())) {
+                // the first attribute wins, just as it did in the linear search
+                byName.put(a.getLocalName(), a);
+            }
+        }
+        this.attributesByNamespace = new HashMap<String, TagAttribute[]>();
+        for (Map.Entry<String, List<TagAttribute>> e : lists.entrySet()) {
+            attributesByNamespace.put(e.getKey(), e.getValue().toArray(new TagAttribute[e.getValue().size()]));
+        }
+        this.namespaces = lists.keySet().toArray(new String[lists.size()]);
     }
 
-	private void init(TagAttribute[] attrs) {
-		this.attrs = attrs;
-	}
-	
-	public void addAttribute(Location location, String ns, String myLocalName, String qName, String value) {
-		TagAttribute[] newAttrs = Arrays.copyOf(attrs, attrs.length+1);
-		newAttrs[attrs.length] = TagAttributeUtilities.createTagAttribute(location, ns, myLocalName, qName, value);
-		init(newAttrs);
-	}
+    /** Collects the attributes of an AFTagAttributes instance. */
+    public static final class Builder {
+        private TagAttribute[] attrs;
+
+        private int size;
+
+        public Builder(TagAttribute[] attrs) {
+            this.attrs = Arrays.copyOf(attrs, attrs.length + 2);
+            this.size = attrs.length;
+        }
+
+        public Builder add(TagAttribute attribute) {
+            if (size == attrs.length) {
+                attrs = Arrays.copyOf(attrs, size * 2 + 2);
+            }
+            attrs[size++] = attribute;
+            return this;
+        }
+
+        public Builder addAttribute(Location location, String ns, String myLocalName, String qName, String value) {
+            return add(TagAttributeUtilities.createTagAttribute(location, ns, myLocalName, qName, value));
+        }
+
+        public AFTagAttributes build() {
+            return new AFTagAttributes(Arrays.copyOf(attrs, size));
+        }
+    }
 
     /**
      * Return an array of all TagAttributesImpl in this set
      * 
-     * @return a non-null array of TagAttributesImpl
+     * @return a non-null array of TagAttributesImpl. It's the internal array, so it mustn't be modified.
      */
     @Override
     public TagAttribute[] getAll() {
@@ -84,11 +142,11 @@ public final class AFTagAttributes extends TagAttributes {
      */
     @Override
     public TagAttribute get(String ns, String localName) {
-        if (ns != null && localName != null)
-        	for (TagAttribute a:attrs)
-        		if (localName.equals(a.getLocalName()))
-        			if (ns.equals(a.getNamespace()))
-        				return a;
+        if (ns != null && localName != null) {
+            Map<String, TagAttribute> byName = index.get(ns);
+            if (null != byName)
+                return byName.get(localName);
+        }
         return null;
     }
 
@@ -99,41 +157,27 @@ public final class AFTagAttributes extends TagAttributes {
      * 
      * @param namespace
      *            namespace to search
-     * @return a non-null array of TagAttributesImpl
+     * @return a non-null array of TagAttributesImpl. It's the internal array, so it mustn't be modified.
      */
     @Override
     public TagAttribute[] getAll(String namespace) {
     	if (namespace==null) namespace="";
-    	List<TagAttribute> list = new ArrayList<TagAttribute>();
-    	for (TagAttribute a:attrs) {
-    		if (namespace.equals(a.getNamespace())) {
-    			list.add(a);
-    		}
-    	}
-    	TagAttribute[] result = new TagAttribute[list.size()];
-    	list.toArray(result);
-    	return result;
+    	TagAttribute[] result = attributesByNamespace.get(namespace);
+    	return null == result ? EMPTY : result;
     }
 
+    /** @return the namespaces of the attributes. It's the internal array, so it mustn't be modified. */
     @Override
     public String[] getNamespaces() {
-    	Map<String, String> m = new HashMap<String, String>();
-    	for (TagAttribute a:attrs) {
-    		String namespace = a.getNamespace();
-    		if (!m.containsKey(namespace)) {
-    			m.put(namespace, namespace);
-    		}
-    	}
-    	String[] namespaces = new String[m.size()];
-    	m.values().toArray(namespaces);
         return namespaces;
     }
-
     @Override
     public Tag getTag() {
         return this.tag;
     }
     
+    /** Assigns the tag to this instance and to each of its attributes. Facelets calls it to attach the attributes to their tag. */
+    @Override
     public void setTag(Tag tag) {
         this.tag = tag;
         for (TagAttribute a : attrs) {
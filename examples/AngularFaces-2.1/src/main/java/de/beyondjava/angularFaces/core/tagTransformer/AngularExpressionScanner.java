@@ -0,0 +1,94 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+/**
+ * Finds AngularJS expressions of the form {{bean.property}} in an attribute value. It's a hand-written replacement of the regular
+ * expression <code>\{\{(\w+\.)+(\w+)\}\}</code> that doesn't allocate any objects.
+ */
+public final class AngularExpressionScanner {
+
+	private AngularExpressionScanner() {
+	}
+
+	/**
+	 * Finds the next AngularJS expression.
+	 * 
+	 * @param value
+	 *            the attribute value
+	 * @param from
+	 *            the index to start the search with
+	 * @return the index of the opening braces, or -1 if there is no (further) AngularJS expression
+	 */
+	public static int find(String value, int from) {
+		if (value.indexOf('{', from) < 0) {
+			return -1;
+		}
+		int start = value.indexOf("{{", from);
+		while (start >= 0) {
+			if (getEnd(value, start) > 0) {
+				return start;
+			}
+			start = value.indexOf("{{", start + 1);
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks whether there's an AngularJS expression at a certain position.
+	 * 
+	 * @param value
+	 *            the attribute value
+	 * @param start
+	 *            the index of the opening braces
+	 * @return the index following the closing braces, or -1 if there's no AngularJS expression at the given position
+	 */
+	public static int getEnd(String value, int start) {
+		int length = value.length();
+		if (start + 1 >= length || value.charAt(start) != '{' || value.charAt(start + 1) != '{') {
+			return -1;
+		}
+		int pos = start + 2;
+		int identifiers = 0;
+		while (true) {
+			int identifierStart = pos;
+			while (pos < length && isWordCharacter(value.charAt(pos))) {
+				pos++;
+			}
+			if (pos == identifierStart) {
+				return -1;
+			}
+			identifiers++;
+			if (pos >= length) {
+				return -1;
+			}
+			char c = value.charAt(pos);
+			if (c == '.') {
+				pos++;
+			} else if (c == '}' && identifiers > 1 && pos + 1 < length && value.charAt(pos + 1) == '}') {
+				return pos + 2;
+			} else {
+				return -1;
+			}
+		}
+	}
+
+	/** Same as \w in a regular expression. */
+	private static boolean isWordCharacter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+	}
+}
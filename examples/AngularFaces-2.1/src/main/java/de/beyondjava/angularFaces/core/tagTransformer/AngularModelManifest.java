@@ -0,0 +1,379 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.faces.application.Application;
+import javax.faces.application.ProjectStage;
+import javax.faces.context.FacesContext;
+import javax.faces.event.AbortProcessingException;
+import javax.faces.event.PreDestroyApplicationEvent;
+import javax.faces.event.SystemEvent;
+import javax.faces.event.SystemEventListener;
+import javax.faces.view.Location;
+import javax.faces.view.facelets.Tag;
+import javax.faces.view.facelets.TagAttribute;
+
+/**
+ * Collects the AngularJS expressions of each facelet while the AngularTagDecorator decorates it, whether the facelet has captions
+ * that have to be translated at runtime, and which client features it needs. At runtime, the AddNGModelAndIDCallback takes the
+ * parsed expressions from the manifest and registers them with PuiModelSync, along with the component they belong to. Views whose
+ * content can't be predicted at compile time (dynamic includes, templates, JSTL, ui:repeat, composite components) don't have a
+ * manifest. The manifests are stored in the
+ * application map, because applications sharing the AngularFaces jar may have facelets with the same path. They're dropped when
+ * the application is shut down.
+ */
+public final class AngularModelManifest implements SystemEventListener {
+	private static final String FACELETS_NAMESPACE = "http://xmlns.jcp.org/jsf/facelets";
+	private static final String LEGACY_FACELETS_NAMESPACE = "http://java.sun.com/jsf/facelets";
+	private static final String JSTL_NAMESPACE = "http://xmlns.jcp.org/jsp/jstl/core";
+	private static final String LEGACY_JSTL_NAMESPACE = "http://java.sun.com/jsp/jstl/core";
+
+	/** Tags and attributes implemented by the AngularFaces directives, or generating them. */
+	private static final Set<String> DIRECTIVE_NAMES = new HashSet<String>(Arrays.asList("puimessage", "puimessages", "puilabel",
+			"integer", "addLabelsAndMessages"));
+
+	/** What we know about a single facelet file. */
+	private static final class FaceletManifest {
+		private final Set<String> includes = new LinkedHashSet<String>();
+		private boolean dynamic = false;
+		private boolean translatedAtRuntime = false;
+		private boolean usesAngularJS = false;
+		private boolean usesDirectives = false;
+		/** Does a controller add labels or messages? They are rendered by the directives. */
+		private boolean addsLabelsOrMessages = false;
+	}
+
+	/** The manifests of the facelets of an application, and the client features derived from them. */
+	private static final class ApplicationManifests {
+		/** path of the facelet -> manifest */
+		private final ConcurrentMap<String, FaceletManifest> facelets = new ConcurrentHashMap<String, FaceletManifest>();
+
+		/**
+		 * The value of each angularfacesattributes attribute generated by the AngularTagDecorator -> the expressions without the
+		 * curly braces
+		 */
+		private final ConcurrentMap<String, String[]> expressions = new ConcurrentHashMap<String, String[]>();
+
+		/** view id -> client features. Only used in production mode, because the facelets aren't recompiled. */
+		private final ConcurrentMap<String, Set<ClientFeature>> clientFeatures = new ConcurrentHashMap<String, Set<ClientFeature>>();
+	}
+
+	/** Application map attribute containing the manifests. */
+	private static final String MANIFESTS = "de.beyondjava.angularFaces.modelManifests";
+
+	/** Instantiated by JSF, to drop the manifests when the application is shut down. */
+	public AngularModelManifest() {
+	}
+
+	/**
+	 * @return the manifests of the current application, or null if there's no FacesContext (e.g. in the FaceletPreDecorator)
+	 */
+	private static ApplicationManifests getApplicationManifests() {
+		FacesContext context = FacesContext.getCurrentInstance();
+		if (null == context) {
+			return null;
+		}
+		Map<String, Object> applicationMap = context.getExternalContext().getApplicationMap();
+		ApplicationManifests manifests = (ApplicationManifests) applicationMap.get(MANIFESTS);
+		if (null == manifests) {
+			synchronized (AngularModelManifest.class) {
+				manifests = (ApplicationManifests) applicationMap.get(MANIFESTS);
+				if (null == manifests) {
+					manifests = new ApplicationManifests();
+					applicationMap.put(MANIFESTS, manifests);
+				}
+			}
+		}
+		return manifests;
+	}
+
+	@Override
+	public boolean isListenerForSource(Object source) {
+		return source instanceof Application;
+	}
+
+	@Override
+	public void processEvent(SystemEvent event) throws AbortProcessingException {
+		if (event instanceof PreDestroyApplicationEvent) {
+			FacesContext.getCurrentInstance().getExternalContext().getApplicationMap().remove(MANIFESTS);
+		}
+	}
+
+	/**
+	 * Records what a decorated tag contributes to the manifest of its facelet.
+	 * 
+	 * @param tag
+	 *            the original tag
+	 * @param decorated
+	 *            the decorated tag, or null if the tag hasn't been modified
+	 */
+	static void record(Tag tag, Tag decorated) {
+		Location location = tag.getLocation();
+		if (null == location || null == location.getPath()) {
+			return;
+		}
+		ApplicationManifests manifests = getApplicationManifests();
+		if (null == manifests) {
+			// nobody's going to read the manifest
+			return;
+		}
+		String path = location.getPath();
+		FaceletManifest manifest = getManifest(manifests, path);
+		String ns = tag.getNamespace();
+		if (FACELETS_NAMESPACE.equals(ns) || LEGACY_FACELETS_NAMESPACE.equals(ns)) {
+			recordFaceletsTag(path, manifest, tag);
+		} else if (JSTL_NAMESPACE.equals(ns) || LEGACY_JSTL_NAMESPACE.equals(ns) || ns.contains("/jsf/composite")) {
+			markDynamic(manifest);
+		}
+
+		Tag t = null == decorated ? tag : decorated;
+		recordClientFeatures(manifest, t);
+		if (null != t.getAttributes().get(AngularTagDecorator.TRANSLATION_MARKER)) {
+			synchronized (manifest) {
+				manifest.translatedAtRuntime = true;
+			}
+		}
+		TagAttribute attributeList = t.getAttributes().get("angularfacesattributes");
+		if (null != attributeList && !manifests.expressions.containsKey(attributeList.getValue())) {
+			manifests.expressions.putIfAbsent(attributeList.getValue(), parseExpressions(attributeList.getValue()));
+		}
+	}
+
+	/**
+	 * Returns the expressions of an angularfacesattributes attribute. The attributes generated by the AngularTagDecorator have been
+	 * parsed when the facelet was compiled. Other attributes, e.g. attributes set programmatically, are parsed each time.
+	 * 
+	 * @param attributeList
+	 *            the value of the angularfacesattributes attribute, e.g. "{{customerBean.firstName}},{{customerBean.lastName}}"
+	 * @return the expressions without the curly braces, e.g. "customerBean.firstName" and "customerBean.lastName". The array is
+	 *         shared, so it mustn't be modified.
+	 */
+	public static String[] getExpressions(String attributeList) {
+		ApplicationManifests manifests = getApplicationManifests();
+		String[] expressions = null == manifests ? null : manifests.expressions.get(attributeList);
+		if (null == expressions) {
+			expressions = parseExpressions(attributeList);
+		}
+		return expressions;
+	}
+
+	private static String[] parseExpressions(String attributeList) {
+		String[] expressions = attributeList.split(",");
+		for (int i = 0; i < expressions.length; i++) {
+			expressions[i] = expressions[i].substring(2, expressions[i].length() - 2);
+		}
+		return expressions;
+	}
+
+	private static void recordClientFeatures(FaceletManifest manifest, Tag t) {
+		boolean usesAngularJS = false;
+		boolean usesDirectives = DIRECTIVE_NAMES.contains(t.getLocalName());
+		boolean labelsDisabled = false;
+		boolean messagesDisabled = false;
+		for (TagAttribute a : t.getAttributes().getAll()) {
+			String name = a.getLocalName();
+			if ("ng-app".equals(name) || "ng-controller".equals(name)) {
+				usesAngularJS = true;
+			} else if (DIRECTIVE_NAMES.contains(name)) {
+				usesDirectives = true;
+			} else if ("addLabels".equals(name)) {
+				labelsDisabled = a.isLiteral() && "false".equalsIgnoreCase(a.getValue());
+			} else if ("addMessages".equals(name)) {
+				messagesDisabled = a.isLiteral() && "false".equalsIgnoreCase(a.getValue());
+			}
+		}
+		if (usesAngularJS || usesDirectives) {
+			synchronized (manifest) {
+				manifest.usesAngularJS |= usesAngularJS;
+				manifest.usesDirectives |= usesDirectives;
+				// by default, the controller adds labels and messages
+				manifest.addsLabelsOrMessages |= usesAngularJS && !(labelsDisabled && messagesDisabled);
+			}
+		}
+	}
+
+	private static void recordFaceletsTag(String path, FaceletManifest manifest, Tag tag) {
+		String localName = tag.getLocalName();
+		if ("include".equals(localName) || "decorate".equals(localName)) {
+			TagAttribute source = tag.getAttributes().get("include".equals(localName) ? "src" : "template");
+			if (null == source || !source.isLiteral()) {
+				markDynamic(manifest);
+				return;
+			}
+			String include = resolve(path, source.getValue());
+			if (null == include) {
+				markDynamic(manifest);
+				return;
+			}
+			synchronized (manifest) {
+				manifest.includes.add(include);
+			}
+		} else if ("composition".equals(localName) || "insert".equals(localName) || "remove".equals(localName)
+				|| "repeat".equals(localName)) {
+			// these tags drop or duplicate content, so the manifest can't be derived from the tags alone
+			markDynamic(manifest);
+		}
+	}
+
+	private static String resolve(String path, String include) {
+		try {
+			return new URI(null, null, path, null).resolve(new URI(null, null, include, null)).normalize().getPath();
+		} catch (URISyntaxException e) {
+			return null;
+		}
+	}
+
+	private static void markDynamic(FaceletManifest manifest) {
+		synchronized (manifest) {
+			manifest.dynamic = true;
+		}
+	}
+
+	private static FaceletManifest getManifest(ApplicationManifests manifests, String path) {
+		FaceletManifest manifest = manifests.facelets.get(path);
+		if (null == manifest) {
+			FaceletManifest newManifest = new FaceletManifest();
+			manifest = manifests.facelets.putIfAbsent(path, newManifest);
+			if (null == manifest) {
+				manifest = newManifest;
+			}
+		}
+		return manifest;
+	}
+
+	/**
+	 * Does the view contain captions that have to be translated at runtime? These are the captions computed by value expressions,
+	 * and the literal captions unless COMPILED_TRANSLATIONS has compiled them into translation expressions.
+	 * 
+	 * @param viewId
+	 *            the view id
+	 * @return false if every caption of the view has already been compiled. True if there are runtime captions or if the content of
+	 *         the view can't be predicted at compile time.
+	 */
+	public static boolean hasRuntimeTranslations(String viewId) {
+		List<FaceletManifest> manifests = collect(viewId);
+		if (null == manifests) {
+			return true;
+		}
+		for (FaceletManifest manifest : manifests) {
+			synchronized (manifest) {
+				if (manifest.translatedAtRuntime) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines which client features a view needs. Facelets that have been recompiled keep the features of their previous version,
+	 * so the result may contain features that aren't needed any longer, but never lacks a feature. In production mode, the facelets
+	 * aren't recompiled, so the result is cached.
+	 * 
+	 * @param viewId
+	 *            the view id
+	 * @return the client features, or null if the content of the view can't be predicted at compile time
+	 */
+	public static Set<ClientFeature> getClientFeatures(String viewId) {
+		ApplicationManifests applicationManifests = getApplicationManifests();
+		if (null == applicationManifests || null == viewId) {
+			return null;
+		}
+		Set<ClientFeature> features = applicationManifests.clientFeatures.get(viewId);
+		if (null != features) {
+			return features;
+		}
+		List<FaceletManifest> manifests = collect(applicationManifests, viewId);
+		if (null == manifests) {
+			return null;
+		}
+		features = EnumSet.noneOf(ClientFeature.class);
+		for (FaceletManifest manifest : manifests) {
+			synchronized (manifest) {
+				if (manifest.usesAngularJS) {
+					features.add(ClientFeature.ANGULARJS);
+				}
+				if (manifest.usesDirectives || manifest.addsLabelsOrMessages) {
+					features.add(ClientFeature.ANGULARJS);
+					features.add(ClientFeature.DIRECTIVES);
+				}
+			}
+		}
+		features = Collections.unmodifiableSet(features);
+		if (FacesContext.getCurrentInstance().isProjectStage(ProjectStage.Production)) {
+			applicationManifests.clientFeatures.put(viewId, features);
+		}
+		return features;
+	}
+
+	/** @return the manifests of the view and the facelets it includes, or null if they can't be predicted */
+	private static List<FaceletManifest> collect(String viewId) {
+		ApplicationManifests applicationManifests = getApplicationManifests();
+		if (null == applicationManifests || null == viewId) {
+			return null;
+		}
+		return collect(applicationManifests, viewId);
+	}
+
+	private static List<FaceletManifest> collect(ApplicationManifests applicationManifests, String viewId) {
+		List<FaceletManifest> result = new ArrayList<FaceletManifest>();
+		if (!collect(applicationManifests, viewId, result, new HashSet<String>())) {
+			return null;
+		}
+		return result;
+	}
+
+	private static boolean collect(ApplicationManifests applicationManifests, String path, List<FaceletManifest> result,
+			Set<String> visited) {
+		if (!visited.add(path)) {
+			return true;
+		}
+		FaceletManifest manifest = applicationManifests.facelets.get(path);
+		if (null == manifest) {
+			// not decorated at runtime (yet)
+			return false;
+		}
+		List<String> includes;
+		synchronized (manifest) {
+			if (manifest.dynamic) {
+				return false;
+			}
+			includes = new ArrayList<String>(manifest.includes);
+		}
+		result.add(manifest);
+		for (String include : includes) {
+			if (!collect(applicationManifests, include, result, visited)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -16,20 +16,19 @@
  */
 package de.beyondjava.angularFaces.core.tagTransformer;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+import javax.faces.context.FacesContext;
 import javax.faces.view.facelets.Tag;
 import javax.faces.view.facelets.TagAttribute;
 import javax.faces.view.facelets.TagAttributes;
 import javax.faces.view.facelets.TagDecorator;
 
+import de.beyondjava.angularFaces.core.ContextParameters;
+import de.beyondjava.angularFaces.core.i18n.TranslatableAttributes;
+import de.beyondjava.angularFaces.core.tagTransformer.DecorationPlan.Conversion;
+
 /**
  * This is one of the most important classes of AngularFaces. It converts attributes to pass-through parameters, adds them to the list of
  * JSF bean to be synchronized with the client and implements a couple of pseudo JSF tags.
@@ -37,59 +36,95 @@ import javax.faces.view.facelets.TagDecorator;
 public class AngularTagDecorator implements TagDecorator {
 	private static boolean active = false;
 
-	private final static Pattern angularExpressionPattern = Pattern.compile("\\{\\{(\\w+\\.)+(\\w+)\\}\\}");
-	private static final String HTML_NAMESPACE = "http://www.w3.org/1999/xhtml";
+	static final String HTML_NAMESPACE = "http://www.w3.org/1999/xhtml";
 	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.tagTransformer.AngularTagDecorator");
 	private static final String JSF_NAMESPACE = "http://xmlns.jcp.org/jsf/html";
 	private static final String PASS_THROUGH_NAMESPACE = "http://xmlns.jcp.org/jsf/passthrough";
 	private static final String ANGULAR_FACES_CORE_NAMESPACE = "http://beyondjava.net/angularFacesCore";
 	private static final String PRIMEFACES_NAMESPACE = "http://primefaces.org/ui";
-	private static final String BOOTSFACES_NAMESPACE = "http://bootsfaces.net/ui";
-	private static final Map<String, String> bootsfacesTags;
-
-	static {
-		bootsfacesTags = new HashMap<String, String>();
-		try {
-			Class.forName("net.bootsfaces.layout.Column");
-			bootsfacesTags.put("alert", "alert");
-			bootsfacesTags.put("badge", "badge");
-			// bootsfacesTags.put("label", "label");
-			bootsfacesTags.put("modal", "modal");
-			// bootsfacesTags.put("button", "button");
-			bootsfacesTags.put("commandButton", "commandButton");
-			bootsfacesTags.put("buttonGroup", "buttonGroup");
-			bootsfacesTags.put("buttonToolbar", "buttonToolbar");
-			bootsfacesTags.put("navBar", "navBar");
-			bootsfacesTags.put("navbarLinks", "navbarLinks");
-			bootsfacesTags.put("listLinks", "listLinks");
-			bootsfacesTags.put("navLink", "navLink");
-			bootsfacesTags.put("dropButton", "dropButton");
-			bootsfacesTags.put("dropMenu", "dropMenu");
-			bootsfacesTags.put("thumbnail", "thumbnail");
-			bootsfacesTags.put("container", "container");
-			bootsfacesTags.put("row", "row");
-			bootsfacesTags.put("column", "column");
-			bootsfacesTags.put("panel", "panel");
-			bootsfacesTags.put("jumbotron", "jumbotron");
-			bootsfacesTags.put("well", "well");
-			bootsfacesTags.put("datepicker", "datepicker");
-			bootsfacesTags.put("slider", "slider");
-			bootsfacesTags.put("inputSecret", "inputSecret");
-			bootsfacesTags.put("inputText", "inputText");
-			bootsfacesTags.put("selectBooleanCheckbox", "selectBooleanCheckbox");
-			bootsfacesTags.put("tabView", "tabView");
-			bootsfacesTags.put("tab", "tab");
-		} catch (Exception notAnError) {
-			// Bootsfaces is not there - so we don't support it
-		}
-	}
+	private static final String JSF_ELEMENT_NAMESPACE = "http://xmlns.jcp.org/jsf";
+
+	/**
+	 * Component attribute marking the components AngularFaces has to look at at runtime: the AngularJS application and controller,
+	 * components containing AngularJS expressions and input fields bound to a bean attribute.
+	 */
+	public static final String ANGULAR_MARKER = "angularfacesmarker";
+
+	/** Component attribute marking the components whose captions have to be translated at runtime. */
+	public static final String TRANSLATION_MARKER = "angularfacestranslation";
+
+	/** Attributes read by the FindNGControllerCallback. */
+	private static final String[] CONTROLLER_ATTRIBUTES = { "ng-app", "ng-controller", "addLabels", "addMessages", "angularJSFile" };
+
+	/** Namespaces of tag handlers that don't create components. */
+	private static final String[] TAG_HANDLER_NAMESPACES = { "http://xmlns.jcp.org/jsf/core", "http://java.sun.com/jsf/core",
+			"http://xmlns.jcp.org/jsf/facelets", "http://java.sun.com/jsf/facelets", "http://xmlns.jcp.org/jsp/jstl/core",
+			"http://java.sun.com/jsp/jstl/core", "http://xmlns.jcp.org/jsf/composite", "http://java.sun.com/jsf/composite" };
 
 	public static boolean isActive() {
 		return active;
 	}
 
+	/**
+	 * Context parameter: if true, &lt;div&gt; and &lt;span&gt; are only converted to puiDiv and puiSpan components if they contain
+	 * AngularJS expressions referring to JSF beans. Otherwise they're rendered as plain markup, even if they have ng-* attributes.
+	 * Tags declaring the AngularJS application or controller (ng-app, ng-controller, addLabels, addMessages, angularJSFile) always
+	 * become components.
+	 */
+	public static final String LIGHTWEIGHT_HTML = "de.beyondjava.angularFaces.LIGHTWEIGHT_HTML";
+
+	private static boolean isLightweightHTML() {
+		FacesContext context = FacesContext.getCurrentInstance();
+		if (null == context) {
+			return false;
+		}
+		return ContextParameters.isTrue(context, LIGHTWEIGHT_HTML);
+	}
+
+	/**
+	 * Context parameter: if true, literal captions are compiled into expressions translating them (#{i18n.translate('...')}), so
+	 * they don't have to be translated by the PuiAngularTransformer at runtime. Don't activate it if your components are created
+	 * programmatically: if the view doesn't contain captions computed by value expressions, the translation pass is skipped in
+	 * production mode.
+	 */
+	public static final String COMPILED_TRANSLATIONS = "de.beyondjava.angularFaces.COMPILED_TRANSLATIONS";
+
+	/**
+	 * Are literal captions compiled into translation expressions?
+	 * 
+	 * @param context
+	 *            the current FacesContext, or null
+	 * @return the value of the context parameter COMPILED_TRANSLATIONS. False if there's no FacesContext.
+	 */
+	public static boolean isCompiledTranslations(FacesContext context) {
+		return null != context && ContextParameters.isTrue(context, COMPILED_TRANSLATIONS);
+	}
+
+	/**
+	 * How often has a cached decoration plan of the current application been reused?
+	 * 
+	 * @return the number of cache hits
+	 */
+	public static long getDecorationPlanCacheHits() {
+		return DecorationPlanCache.getInstance().getHits();
+	}
+
+	/**
+	 * How often did a decoration plan of the current application have to be computed?
+	 * 
+	 * @return the number of cache misses
+	 */
+	public static long getDecorationPlanCacheMisses() {
+		return DecorationPlanCache.getInstance().getMisses();
+	}
+
 	private final RelaxedTagDecorator relaxedDecorator = new RelaxedTagDecorator();
 
+	private final TagMappingRegistry tagMappings = TagMappingRegistry.getInstance();
+
+	/** The plans contain the mappings of tagMappings, so both belong to the same application. */
+	private final DecorationPlanCache planCache = DecorationPlanCache.getInstance();
+
 	private Tag convertElementToInputText(Tag tag, TagAttributes modifiedAttributes) {
 		TagAttribute[] attributes = modifiedAttributes.getAll();
 		TagAttribute[] lessAttributes = Arrays.copyOf(attributes, attributes.length - 1);
@@ -186,67 +221,238 @@ public class AngularTagDecorator implements TagDecorator {
 
 	private Tag createTags(Tag tag) {
 		active = true;
-		TagAttributes modifiedAttributes = extractAngularAttributes(tag);
-		// Apache MyFaces converts HTML tag with jsf: namespace, but missing an attribute, into jsf:element tag. We'll fix this
-		// for the special case of input fields.
+		if (PredecoratedFacelets.isPredecorated(tag.getLocation())) {
+			// the tag has been decorated at build time, but the manifest of the facelet is collected at runtime
+			AngularModelManifest.record(tag, null);
+			return null;
+		}
+		String key = planCache.getKey(tag);
+		DecorationPlan plan = planCache.get(key);
+		if (null == plan) {
+			plan = createDecorationPlan(tag);
+			planCache.put(key, plan);
+		}
+		TagAttributes modifiedAttributes = extractAngularAttributes(tag, plan);
+		Tag decorated = addMarkerIfNecessary(tag, compileTranslations(tag, applyPlan(tag, plan, modifiedAttributes)));
+		AngularModelManifest.record(tag, decorated);
+		return decorated;
+	}
 
-		if ("element".equals(tag.getLocalName())) {
-			TagAttribute tagAttribute = modifiedAttributes.get(PASS_THROUGH_NAMESPACE, "elementName");
-			if ("input".equals(tagAttribute.getValue())) {
-				return convertElementToInputText(tag, modifiedAttributes);
+	/**
+	 * Marks the components whose captions have to be translated at runtime. If COMPILED_TRANSLATIONS is active, literal captions are
+	 * replaced by expressions translating them into the language of the view. The translations are read once per locale, so the
+	 * runtime only has to translate captions computed by value expressions.
+	 * 
+	 * @return the decorated tag, or null if the tag hasn't been modified
+	 */
+	private Tag compileTranslations(Tag tag, Tag decorated) {
+		Tag t = null == decorated ? tag : decorated;
+		if (isHTMLNamespace(t.getNamespace()) || Arrays.asList(TAG_HANDLER_NAMESPACES).contains(t.getNamespace())) {
+			return decorated;
+		}
+		boolean compile = isCompiledTranslations(FacesContext.getCurrentInstance());
+		TagAttribute[] attrs = t.getAttributes().getAll();
+		TagAttribute[] compiled = null;
+		boolean translatedAtRuntime = false;
+		for (int i = 0; i < attrs.length; i++) {
+			TagAttribute a = attrs[i];
+			String name = a.getLocalName();
+			boolean isValue = "value".equals(name);
+			// the value of an input field is data, not a caption
+			boolean isCaption = isValue ? TranslatableAttributes.CAPTION_TAGS.contains(t.getLocalName())
+					: TranslatableAttributes.ATTRIBUTES.contains(name);
+			if (!"".equals(a.getNamespace()) || !isCaption) {
+				continue;
+			}
+			if (!a.isLiteral()) {
+				if (!TranslatableAttributes.isTranslationExpression(a.getValue())) {
+					translatedAtRuntime = true;
+				}
+			} else if (a.getValue().trim().length() > 0) {
+				if (!compile) {
+					translatedAtRuntime = true;
+					continue;
+				}
+				if (null == compiled) {
+					compiled = attrs.clone();
+				}
+				compiled[i] = TagAttributeUtilities.createTagAttribute(a.getLocation(), a.getNamespace(), name, a.getQName(),
+						TranslatableAttributes.toTranslationExpression(a.getValue()));
 			}
 		}
+		if (null == compiled && !translatedAtRuntime) {
+			return decorated;
+		}
+		AFTagAttributes.Builder builder = new AFTagAttributes.Builder(null == compiled ? attrs : compiled);
+		if (translatedAtRuntime) {
+			builder.addAttribute(t.getLocation(), "", TRANSLATION_MARKER, TRANSLATION_MARKER, "true");
+		}
+		return new Tag(t.getLocation(), t.getNamespace(), t.getLocalName(), t.getQName(), builder.build());
+	}
 
-		if ("body".equals(tag.getLocalName())) {
-			return convertToACBodyTag(tag, modifiedAttributes);
+	/**
+	 * Marks the components AngularFaces has to look at at runtime, so the component tree visits can skip the rest of the tree.
+	 * 
+	 * @return the decorated tag, or null if the tag hasn't been modified
+	 */
+	private Tag addMarkerIfNecessary(Tag tag, Tag decorated) {
+		Tag t = null == decorated ? tag : decorated;
+		if (isHTMLNamespace(t.getNamespace())) {
+			if (null == decorated || !hasJSFElementAttribute(t.getAttributes())) {
+				// plain markup, not a component. A marker in the jsf namespace would turn it into a component.
+				return decorated;
+			}
+		} else if (Arrays.asList(TAG_HANDLER_NAMESPACES).contains(t.getNamespace())) {
+			return decorated;
 		}
-		if ("messages".equals(tag.getLocalName())) {
-			return convertToPuiMessagesTag(tag, modifiedAttributes);
+		if (!needsMarker(t.getAttributes())) {
+			return decorated;
 		}
-		if (!isHTMLNamespace(tag.getNamespace())) {
-			return generateTagIfNecessary(tag, modifiedAttributes);
+		// JSF renders the attributes of pass-through elements, unless they belong to the jsf namespace
+		String ns = isHTMLNamespace(t.getNamespace()) ? JSF_ELEMENT_NAMESPACE : "";
+		AFTagAttributes marked = new AFTagAttributes.Builder(t.getAttributes().getAll()).addAttribute(t.getLocation(), ns,
+				ANGULAR_MARKER, ANGULAR_MARKER, "true").build();
+		return new Tag(t.getLocation(), t.getNamespace(), t.getLocalName(), t.getQName(), marked);
+	}
+
+	private boolean needsMarker(TagAttributes attributes) {
+		for (TagAttribute a : attributes.getAll()) {
+			String name = a.getLocalName();
+			if ("angularfacesattributes".equals(name) || isControllerAttribute(name)) {
+				return true;
+			}
+			// captions compiled by compileTranslations() aren't bound to a bean
+			if ("value".equals(name) && !a.isLiteral() && !TranslatableAttributes.isTranslationExpression(a.getValue())) {
+				return true;
+			}
 		}
-		Tag newTag = relaxedDecorator.decorate(tag);
-		if (newTag != null && newTag != tag) {
-			return newTag;
+		return false;
+	}
+
+	/** HTML tags become components (pass-through elements) if they have an attribute in the jsf namespace. */
+	private boolean hasJSFElementAttribute(TagAttributes attributes) {
+		for (TagAttribute a : attributes.getAll()) {
+			if (JSF_ELEMENT_NAMESPACE.equals(a.getNamespace()) || "http://java.sun.com/jsf".equals(a.getNamespace())) {
+				return true;
+			}
 		}
+		return false;
+	}
 
-		if ("translate".equals(tag.getLocalName()) || "i18n".equals(tag.getLocalName())) {
-			return convertToTranslateTag(tag, modifiedAttributes);
+	private boolean isControllerAttribute(String name) {
+		for (String controllerAttribute : CONTROLLER_ATTRIBUTES) {
+			if (controllerAttribute.equals(name)) {
+				return true;
+			}
 		}
+		return false;
+	}
 
-		if ("ngsync".equals(tag.getLocalName())) {
-			return convertToNGSyncTag(tag, modifiedAttributes);
+	private boolean hasControllerAttribute(TagAttributes attributes) {
+		for (TagAttribute a : attributes.getAll()) {
+			if (isControllerAttribute(a.getLocalName())) {
+				return true;
+			}
 		}
+		return false;
+	}
 
-		if ("input".equals(tag.getLocalName())) {
+	private Tag applyPlan(Tag tag, DecorationPlan plan, TagAttributes modifiedAttributes) {
+		switch (plan.getConversion()) {
+		case ELEMENT_TO_INPUT_TEXT:
+			return convertElementToInputText(tag, modifiedAttributes);
+		case BODY:
+			return convertToACBodyTag(tag, modifiedAttributes);
+		case MESSAGES:
+			return convertToPuiMessagesTag(tag, modifiedAttributes);
+		case NON_HTML_TAG:
+			return generateTagIfNecessary(tag, modifiedAttributes);
+		case RELAXED:
+			return relaxedDecorator.decorate(tag);
+		case TRANSLATE:
+			return convertToTranslateTag(tag, modifiedAttributes);
+		case NGSYNC:
+			return convertToNGSyncTag(tag, modifiedAttributes);
+		case INPUT:
 			return convertToInputText(tag, modifiedAttributes);
+		case COMPONENT_LIBRARY:
+			return convertToComponentLibraryTag(tag, plan.getTagMapping(), modifiedAttributes);
+		default:
+			if (!plan.hasAngularAttributes()) {
+				// nothing to do - the cached plan tells us there's no AngularJS expression in this tag
+				return null;
+			}
+			return generateTagIfNecessary(tag, modifiedAttributes);
 		}
+	}
 
-		tag = convertBootsFacesTag(tag);
-		return generateTagIfNecessary(tag, modifiedAttributes);
+	/**
+	 * Decides which conversion is to be applied to a tag. The decision only depends on the namespace and the name of the tag and on
+	 * the names of its attributes, so it can be cached.
+	 */
+	private DecorationPlan createDecorationPlan(Tag tag) {
+		TagAttribute[] attrs = tag.getAttributes().getAll();
+		int[] indexes = new int[attrs.length];
+		int count = 0;
+		for (int i = 0; i < attrs.length; i++) {
+			String value = attrs[i].getValue();
+			if (attrs[i].getLocalName().startsWith("ng-") || (null != value && value.indexOf("{{") >= 0)) {
+				indexes[count++] = i;
+			}
+		}
+		TagMapping mapping = null;
+		if (isHTMLNamespace(tag.getNamespace())) {
+			mapping = tagMappings.lookup(tag.getNamespace(), tag.getLocalName());
+		}
+		return new DecorationPlan(selectConversion(tag, mapping), Arrays.copyOf(indexes, count), mapping);
 	}
 
-	private Tag convertBootsFacesTag(Tag tag) {
-		if (HTML_NAMESPACE.equals(tag.getNamespace())) {
-			String tagname = tag.getLocalName();
-			if (bootsfacesTags.containsKey(tagname)) {
-				AFTagAttributes modifiedAttributes = new AFTagAttributes(tag.getAttributes().getAll());
-//				TagAttribute[] all = tag.getAttributes().getAll();
-//				for (TagAttribute attr:all) {
-//					TagAttribute a = attr;
-//				}
-				Tag t = new Tag(tag.getLocation(), BOOTSFACES_NAMESPACE, tag.getLocalName(), tag.getQName(), modifiedAttributes);
-				return t;
+	private Conversion selectConversion(Tag tag, TagMapping mapping) {
+		String localName = tag.getLocalName();
+		// Apache MyFaces converts HTML tag with jsf: namespace, but missing an attribute, into jsf:element tag. We'll fix this
+		// for the special case of input fields.
+		if ("element".equals(localName)) {
+			TagAttribute tagAttribute = tag.getAttributes().get(PASS_THROUGH_NAMESPACE, "elementName");
+			if (null != tagAttribute && "input".equals(tagAttribute.getValue())) {
+				return Conversion.ELEMENT_TO_INPUT_TEXT;
 			}
 		}
-		return tag;
+
+		if ("body".equals(localName)) {
+			return Conversion.BODY;
+		}
+		if ("messages".equals(localName)) {
+			return Conversion.MESSAGES;
+		}
+		if (!isHTMLNamespace(tag.getNamespace())) {
+			return Conversion.NON_HTML_TAG;
+		}
+		if (null != mapping && mapping.getKind() == TagMapping.Kind.RELAXED) {
+			return Conversion.RELAXED;
+		}
+		if ("translate".equals(localName) || "i18n".equals(localName)) {
+			return Conversion.TRANSLATE;
+		}
+		if ("ngsync".equals(localName)) {
+			return Conversion.NGSYNC;
+		}
+		if ("input".equals(localName)) {
+			return Conversion.INPUT;
+		}
+		if (null != mapping && mapping.getKind() == TagMapping.Kind.COMPONENT_LIBRARY) {
+			return Conversion.COMPONENT_LIBRARY;
+		}
+		return Conversion.HTML_TAG;
+	}
+
+	private Tag convertToComponentLibraryTag(Tag tag, TagMapping mapping, TagAttributes modifiedAttributes) {
+		return new Tag(tag.getLocation(), mapping.getNamespace(), mapping.getLocalName(), tag.getQName(), modifiedAttributes);
 	}
 
 	private Tag convertToPuiMessagesTag(Tag tag, TagAttributes attributeList) {
 		if (tag.getNamespace().equals(PRIMEFACES_NAMESPACE)) {
-			AFTagAttributes modifiedAttributes = new AFTagAttributes(attributeList.getAll());
-			modifiedAttributes.addAttribute(tag.getLocation(), PASS_THROUGH_NAMESPACE, "primefaces", "primefaces", "true");
+			AFTagAttributes modifiedAttributes = new AFTagAttributes.Builder(attributeList.getAll())
+					.addAttribute(tag.getLocation(), PASS_THROUGH_NAMESPACE, "primefaces", "primefaces", "true").build();
 			Tag t = new Tag(tag.getLocation(), HTML_NAMESPACE, "puimessages", "puimessages", modifiedAttributes);
 			return t;
 		} else {
@@ -255,59 +461,90 @@ public class AngularTagDecorator implements TagDecorator {
 		}
 	}
 
-	private TagAttributes extractAngularAttributes(Tag tag) {
+	private TagAttributes extractAngularAttributes(Tag tag, DecorationPlan plan) {
+		if (!plan.hasAngularAttributes()) {
+			return tag.getAttributes();
+		}
 		TagAttribute[] attrs = tag.getAttributes().getAll();
-		List<TagAttribute> modified = new ArrayList<TagAttribute>();
+		int[] angularAttributeIndexes = plan.getAngularAttributeIndexes();
+		int nextAngularAttribute = 0;
+		// slot 0 is reserved for the angularfacesattributes attribute, and each value attribute adds at most one ng-model attribute
+		TagAttribute[] modified = new TagAttribute[attrs.length + angularAttributeIndexes.length + 1];
+		int count = 1;
 		boolean hasChanges = false;
-		String angularExpressions = "";
-		for (TagAttribute a : attrs) {
-			String modifiedValue = a.getValue();
-			boolean firstMatch = true;
-			Matcher matcher = angularExpressionPattern.matcher(a.getValue());
-			while (matcher.find()) {
-				String exp = matcher.group();
-				angularExpressions += "," + exp;
-				modifiedValue = modifiedValue.replace(exp, "#" + exp.substring(1, exp.length() - 1));
-				if ("value".equals(a.getLocalName())) {
-					TagAttribute modifiedAttribute = TagAttributeUtilities.createTagAttribute(a.getLocation(), PASS_THROUGH_NAMESPACE,
-							"ng-model", "ng-model", exp.substring(2, exp.length() - 2));
-					modified.add(modifiedAttribute);
-					if (!firstMatch) {
-						LOGGER.severe("Tag " + tag.getQName() + " can't have multiple ng-models." + tag.getLocation().toString());
+		StringBuilder angularExpressions = null;
+		for (int i = 0; i < attrs.length; i++) {
+			TagAttribute a = attrs[i];
+			if (nextAngularAttribute >= angularAttributeIndexes.length || angularAttributeIndexes[nextAngularAttribute] != i) {
+				// the plan tells us there's neither an AngularJS expression nor an AngularJS attribute
+				modified[count++] = a;
+				continue;
+			}
+			nextAngularAttribute++;
+			String value = a.getValue();
+			String modifiedValue = value;
+			int start = AngularExpressionScanner.find(value, 0);
+			if (start >= 0) {
+				StringBuilder rewritten = new StringBuilder(value.length());
+				int copied = 0;
+				boolean firstMatch = true;
+				while (start >= 0) {
+					int end = AngularExpressionScanner.getEnd(value, start);
+					if (null == angularExpressions) {
+						angularExpressions = new StringBuilder(64);
+					} else {
+						angularExpressions.append(',');
 					}
-					firstMatch = false;
+					angularExpressions.append(value, start, end);
+					rewritten.append(value, copied, start).append("#{").append(value, start + 2, end - 2).append('}');
+					copied = end;
+					if ("value".equals(a.getLocalName())) {
+						if (firstMatch) {
+							modified[count++] = TagAttributeUtilities.createTagAttribute(a.getLocation(), PASS_THROUGH_NAMESPACE,
+									"ng-model", "ng-model", value.substring(start + 2, end - 2));
+							firstMatch = false;
+						} else {
+							LOGGER.severe("Tag " + tag.getQName() + " can't have multiple ng-models." + tag.getLocation().toString());
+						}
+					}
+					start = AngularExpressionScanner.find(value, end);
 				}
+				rewritten.append(value, copied, value.length());
+				modifiedValue = rewritten.toString();
 				hasChanges = true;
 			}
-			TagAttribute modifiedAttribute;
 			if (a.getLocalName().startsWith("ng-")) {
 				// make AngularJS attributes pass-through attributes
-				modifiedAttribute = TagAttributeUtilities.createTagAttribute(a.getLocation(), PASS_THROUGH_NAMESPACE, a.getLocalName(),
+				modified[count++] = TagAttributeUtilities.createTagAttribute(a.getLocation(), PASS_THROUGH_NAMESPACE, a.getLocalName(),
 						a.getLocalName(), modifiedValue);
 				hasChanges = true;
-			} else {
-				modifiedAttribute = TagAttributeUtilities.createTagAttribute(a.getLocation(), a.getNamespace(), a.getLocalName(),
+			} else if (modifiedValue != value) {
+				modified[count++] = TagAttributeUtilities.createTagAttribute(a.getLocation(), a.getNamespace(), a.getLocalName(),
 						a.getQName(), modifiedValue);
+			} else {
+				modified[count++] = a;
 			}
-			modified.add(modifiedAttribute);
 		}
 		if (hasChanges) {
-			if (angularExpressions.length() > 0) {
-				TagAttribute af = TagAttributeUtilities.createTagAttribute(tag.getLocation(), "", "angularfacesattributes",
-						"angularfacesattributes", angularExpressions.substring(1));
-				modified.add(0, af);
-			}
-			TagAttribute[] modifiedAttributeList = new TagAttribute[modified.size()];
-			for (int i = 0; i < modified.size(); i++) {
-				modifiedAttributeList[i] = modified.get(i);
+			if (null != angularExpressions) {
+				modified[0] = TagAttributeUtilities.createTagAttribute(tag.getLocation(), "", "angularfacesattributes",
+						"angularfacesattributes", angularExpressions.toString());
+				return new AFTagAttributes(Arrays.copyOf(modified, count));
 			}
-			return new AFTagAttributes((TagAttribute[]) modifiedAttributeList);
+			return new AFTagAttributes(Arrays.copyOfRange(modified, 1, count));
 		}
 		return tag.getAttributes();
 	}
 
 	private Tag generateTagIfNecessary(Tag tag, TagAttributes modifiedAttributes) {
 		if (modifiedAttributes != tag.getAttributes()) {
+			if (isLightweightHTML() && isHTMLNamespace(tag.getNamespace())
+					&& (tag.getLocalName().equals("div") || tag.getLocalName().equals("span"))
+					&& null == modifiedAttributes.get("angularfacesattributes") && !hasControllerAttribute(modifiedAttributes)) {
+				// There's no JSF bean attribute to synchronize, just AngularJS attributes. Facelets renders them as plain markup.
+				// The AngularJS application and controller have to remain components: that's where the PuiModelSync is added.
+				return null;
+			}
 			if (tag.getLocalName().equals("div") && modifiedAttributes instanceof AFTagAttributes) {
 				return generatePuiHtmlTag(tag, modifiedAttributes, "puiDiv");
 			} else if (tag.getLocalName().equals("span") && modifiedAttributes instanceof AFTagAttributes) {
@@ -319,19 +556,16 @@ public class AngularTagDecorator implements TagDecorator {
 	}
 
 	private Tag generatePuiHtmlTag(Tag tag, TagAttributes modifiedAttributes, final String htmlTag) {
-		String keys = "";
-		TagAttribute[] all = modifiedAttributes.getAll();
+		TagAttribute[] all = TagAttributeUtilities.createTagAttributes(modifiedAttributes.getAll(), PASS_THROUGH_NAMESPACE);
+		StringBuilder keys = new StringBuilder();
 		for (int i = 0; i < all.length; i++) {
-			TagAttribute attr = all[i];
-			keys += attr.getLocalName() + ",";
-			all[i] = TagAttributeUtilities.createTagAttribute(attr.getLocation(), PASS_THROUGH_NAMESPACE, attr.getLocalName(),
-					attr.getQName(), attr.getValue());
-		}
-		if (keys.endsWith(","))
-			keys = keys.substring(0, keys.length() - 1);
-		((AFTagAttributes) modifiedAttributes).addAttribute(tag.getLocation(), ANGULAR_FACES_CORE_NAMESPACE, "attributeNames",
-				"attributeNames", keys);
-		return new Tag(tag.getLocation(), ANGULAR_FACES_CORE_NAMESPACE, htmlTag, htmlTag, modifiedAttributes);
+			if (i > 0)
+				keys.append(',');
+			keys.append(all[i].getLocalName());
+		}
+		AFTagAttributes passThroughAttributes = new AFTagAttributes.Builder(all).addAttribute(tag.getLocation(),
+				ANGULAR_FACES_CORE_NAMESPACE, "attributeNames", "attributeNames", keys.toString()).build();
+		return new Tag(tag.getLocation(), ANGULAR_FACES_CORE_NAMESPACE, htmlTag, htmlTag, passThroughAttributes);
 	}
 
 	private boolean isHTMLNamespace(String ns) {
@@ -0,0 +1,41 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+/** Converts HTML tags such as &lt;inputText&gt; to BootsFaces tags, provided BootsFaces is on the classpath. */
+public class BootsFacesTagMappingProvider implements TagMappingProvider {
+	private static final String BOOTSFACES_NAMESPACE = "http://bootsfaces.net/ui";
+
+	private static final String[] BOOTSFACES_TAGS = { "alert", "badge", /* "label", */"modal", /* "button", */"commandButton",
+			"buttonGroup", "buttonToolbar", "navBar", "navbarLinks", "listLinks", "navLink", "dropButton", "dropMenu", "thumbnail",
+			"container", "row", "column", "panel", "jumbotron", "well", "datepicker", "slider", "inputSecret", "inputText",
+			"selectBooleanCheckbox", "tabView", "tab" };
+
+	@Override
+	public void registerMappings(TagMappingRegistry.Builder registry) {
+		try {
+			Class.forName("net.bootsfaces.layout.Column");
+		} catch (ClassNotFoundException notAnError) {
+			// Bootsfaces is not there - so we don't support it
+			return;
+		}
+		for (String tag : BOOTSFACES_TAGS) {
+			registry.map(AngularTagDecorator.HTML_NAMESPACE, tag, new TagMapping(TagMapping.Kind.COMPONENT_LIBRARY,
+					BOOTSFACES_NAMESPACE, tag));
+		}
+	}
+}
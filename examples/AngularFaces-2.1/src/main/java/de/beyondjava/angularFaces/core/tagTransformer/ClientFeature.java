@@ -0,0 +1,25 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+/** The client-side features a view may need. Each feature requires some of the JavaScript files of AngularFaces. */
+public enum ClientFeature {
+	/** AngularJS, jQuery and the AngularFaces core, needed by every view containing an AngularJS application or controller. */
+	ANGULARJS,
+	/** The AngularFaces directives (labels, messages, integer validation) and the messages of the client-side validation. */
+	DIRECTIVES
+}
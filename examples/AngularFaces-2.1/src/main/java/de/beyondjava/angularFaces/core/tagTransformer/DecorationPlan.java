@@ -0,0 +1,63 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+/**
+ * Remembers how AngularTagDecorator treats a certain tag shape, so the decision doesn't have to be made again each time the same
+ * tag shape shows up in a facelet.
+ */
+public final class DecorationPlan {
+	/** The conversions implemented by AngularTagDecorator. */
+	public static enum Conversion {
+		ELEMENT_TO_INPUT_TEXT, BODY, MESSAGES, NON_HTML_TAG, RELAXED, TRANSLATE, NGSYNC, INPUT, COMPONENT_LIBRARY, HTML_TAG
+	}
+
+	private final Conversion conversion;
+
+	/** Index of each attribute that may contain an AngularJS expression or is an AngularJS attribute (ng-*). */
+	private final int[] angularAttributeIndexes;
+
+	/** The mapping of the tag, or null if the tag isn't mapped. */
+	private final TagMapping tagMapping;
+
+	public DecorationPlan(Conversion conversion, int[] angularAttributeIndexes, TagMapping tagMapping) {
+		this.conversion = conversion;
+		this.angularAttributeIndexes = angularAttributeIndexes;
+		this.tagMapping = tagMapping;
+	}
+
+	public Conversion getConversion() {
+		return conversion;
+	}
+
+	public int[] getAngularAttributeIndexes() {
+		return angularAttributeIndexes;
+	}
+
+	public TagMapping getTagMapping() {
+		return tagMapping;
+	}
+
+	/**
+	 * Is there anything to do with the attributes of the tag? If not, the attributes can be used as they are.
+	 * 
+	 * @return true if at least one attribute has to be scanned for AngularJS expressions
+	 */
+	public boolean hasAngularAttributes() {
+		return angularAttributeIndexes.length > 0;
+	}
+}
@@ -0,0 +1,175 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.faces.context.FacesContext;
+import javax.faces.view.facelets.Tag;
+import javax.faces.view.facelets.TagAttribute;
+
+import de.beyondjava.angularFaces.core.ContextParameters;
+
+/**
+ * Caches the decoration plans of AngularTagDecorator. The key consists of the namespace and the local name of the tag, the names of the
+ * attributes and the information which attribute values contain curly braces. The plans contain the tag mappings of the
+ * application's TagMappingRegistry, so the cache is stored in the application map, too. The number of plans is limited by the
+ * context parameter <code>de.beyondjava.angularFaces.DECORATION_PLAN_CACHE_SIZE</code>. When it's exceeded, the least recently
+ * used plan is evicted. The plans are only used while the facelets are compiled, so the cache is guarded by a simple lock.
+ */
+public final class DecorationPlanCache {
+	public static final String DECORATION_PLAN_CACHE_SIZE = "de.beyondjava.angularFaces.DECORATION_PLAN_CACHE_SIZE";
+
+	/** Application map attribute containing the cache. */
+	private static final String CACHE = "de.beyondjava.angularFaces.decorationPlanCache";
+
+	private static final int DEFAULT_SIZE = 2000;
+
+	private final int maximumSize;
+
+	/** access-ordered, so the eldest entry is the least recently used plan */
+	private final LinkedHashMap<String, DecorationPlan> plans;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Creates an empty cache.
+	 * 
+	 * @param maximumSize
+	 *            the maximum number of plans
+	 */
+	public DecorationPlanCache(int maximumSize) {
+		this.maximumSize = Math.max(maximumSize, 1);
+		this.plans = new LinkedHashMap<String, DecorationPlan>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, DecorationPlan> eldest) {
+				if (size() > DecorationPlanCache.this.maximumSize) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cache of the current application, creating it if necessary.
+	 * 
+	 * @return the cache stored in the application map. Without a FacesContext (e.g. in the FaceletPreDecorator), a new cache.
+	 */
+	public static DecorationPlanCache getInstance() {
+		FacesContext context = FacesContext.getCurrentInstance();
+		if (null == context) {
+			return new DecorationPlanCache(DEFAULT_SIZE);
+		}
+		Map<String, Object> applicationMap = context.getExternalContext().getApplicationMap();
+		DecorationPlanCache cache = (DecorationPlanCache) applicationMap.get(CACHE);
+		if (null == cache) {
+			// concurrent callers may create two caches. One of them is lost, along with a few plans.
+			cache = new DecorationPlanCache((int) ContextParameters.getNumber(context, DECORATION_PLAN_CACHE_SIZE, DEFAULT_SIZE));
+			applicationMap.put(CACHE, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Computes the key of the tag shape.
+	 * 
+	 * @param tag
+	 *            the tag to be decorated
+	 * @return the key
+	 */
+	public String getKey(Tag tag) {
+		TagAttribute[] attributes = tag.getAttributes().getAll();
+		StringBuilder key = new StringBuilder(32 + attributes.length * 16);
+		key.append(tag.getNamespace()).append('|').append(tag.getLocalName());
+		for (TagAttribute a : attributes) {
+			key.append('|').append(a.getNamespace()).append(':').append(a.getLocalName());
+			String value = a.getValue();
+			if (null != value && value.indexOf("{{") >= 0) {
+				key.append('*');
+			}
+		}
+		if ("element".equals(tag.getLocalName())) {
+			// the conversion of jsf:element depends on the value of the elementName attribute
+			TagAttribute elementName = tag.getAttributes().get("http://xmlns.jcp.org/jsf/passthrough", "elementName");
+			if (null != elementName) {
+				key.append('=').append(elementName.getValue());
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Looks up a plan.
+	 * 
+	 * @param key
+	 *            the key computed by {@link #getKey(Tag)}
+	 * @return null if there's no plan yet
+	 */
+	public DecorationPlan get(String key) {
+		DecorationPlan plan;
+		synchronized (plans) {
+			plan = plans.get(key);
+		}
+		if (null == plan) {
+			misses.incrementAndGet();
+		} else {
+			hits.incrementAndGet();
+		}
+		return plan;
+	}
+
+	public void put(String key, DecorationPlan plan) {
+		synchronized (plans) {
+			plans.put(key, plan);
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/** @return the number of plans removed because the cache was full */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	public int size() {
+		synchronized (plans) {
+			return plans.size();
+		}
+	}
+
+	public void clear() {
+		synchronized (plans) {
+			plans.clear();
+		}
+	}
+}
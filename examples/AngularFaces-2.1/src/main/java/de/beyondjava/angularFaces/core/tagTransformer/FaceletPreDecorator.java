@@ -0,0 +1,421 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import javax.faces.view.Location;
+import javax.faces.view.facelets.Tag;
+import javax.faces.view.facelets.TagAttribute;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.NamespaceSupport;
+
+/**
+ * Applies the AngularTagDecorator to the facelets of a web application at build time. The decorated facelets are written to a separate
+ * directory which is added to the war file, together with a marker file telling the AngularTagDecorator to skip these facelets at
+ * runtime. Facelets that can't be parsed as plain XML (e.g. because they use HTML entities like &amp;nbsp;) are left to the runtime
+ * decorator.
+ * <p>
+ * Only the start and end tags of the decorated elements are rewritten. Everything else - comments, whitespace, the attributes of the
+ * other tags - is copied verbatim, and a rewritten start tag spans as many lines as the original one. So the line numbers reported
+ * by the JSF implementation still match the source files.
+ * <p>
+ * Usage: <code>FaceletPreDecorator &lt;webapp source directory&gt; &lt;target directory&gt;</code>. The examples pom.xml runs it in
+ * the "predecorate" profile.
+ */
+public class FaceletPreDecorator {
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.tagTransformer.FaceletPreDecorator");
+
+	/** Preferred prefixes of the namespaces generated by the AngularTagDecorator. */
+	private static final Map<String, String> PREFIXES = new HashMap<String, String>();
+
+	static {
+		PREFIXES.put("http://xmlns.jcp.org/jsf/html", "h");
+		PREFIXES.put("http://java.sun.com/jsf/html", "h");
+		PREFIXES.put("http://xmlns.jcp.org/jsf/passthrough", "pt");
+		PREFIXES.put("http://xmlns.jcp.org/jsf", "jsf");
+		PREFIXES.put("http://beyondjava.net/angularFacesCore", "ac");
+		PREFIXES.put("http://primefaces.org/ui", "p");
+		PREFIXES.put("http://bootsfaces.net/ui", "b");
+	}
+
+	private final AngularTagDecorator decorator = new AngularTagDecorator();
+
+	private final SAXParserFactory parserFactory;
+
+	public FaceletPreDecorator() throws Exception {
+		parserFactory = SAXParserFactory.newInstance();
+		parserFactory.setNamespaceAware(true);
+		// report the namespace declarations as attributes, so they can be copied to a rewritten start tag
+		parserFactory.setFeature("http://xml.org/sax/features/namespace-prefixes", true);
+		parserFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length != 2) {
+			System.err.println("Usage: FaceletPreDecorator <webapp source directory> <target directory>");
+			System.exit(1);
+		}
+		File source = new File(args[0]);
+		File target = new File(args[1]);
+		List<String> decorated = new ArrayList<String>();
+		new FaceletPreDecorator().decorateDirectory(source, target, "", decorated);
+
+		File marker = new File(target, PredecoratedFacelets.MARKER_FILE.substring(1));
+		marker.getParentFile().mkdirs();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(marker), "UTF-8");
+		try {
+			for (String path : decorated) {
+				writer.write(path);
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+		LOGGER.info(decorated.size() + " facelets have been decorated.");
+	}
+
+	private void decorateDirectory(File directory, File target, String path, List<String> decorated) {
+		File[] files = directory.listFiles();
+		if (null == files) {
+			return;
+		}
+		for (File file : files) {
+			String viewId = path + "/" + file.getName();
+			if (file.isDirectory()) {
+				decorateDirectory(file, new File(target, file.getName()), viewId, decorated);
+			} else if (file.getName().endsWith(".xhtml")) {
+				try {
+					decorateFacelet(file, new File(target, file.getName()), viewId);
+					decorated.add(viewId);
+				} catch (Exception e) {
+					LOGGER.warning("Couldn't decorate " + viewId + " at build time (" + e.getMessage()
+							+ "). It will be decorated at runtime.");
+				}
+			}
+		}
+	}
+
+	private void decorateFacelet(File source, File target, String viewId) throws Exception {
+		StringBuilder facelet = new StringBuilder((int) source.length());
+		// Facelets are UTF-8 encoded unless they declare another encoding, which isn't supported by the FaceletPreDecorator
+		Reader in = new InputStreamReader(new FileInputStream(source), "UTF-8");
+		try {
+			char[] buffer = new char[8192];
+			int length;
+			while ((length = in.read(buffer)) > 0) {
+				facelet.append(buffer, 0, length);
+			}
+		} finally {
+			in.close();
+		}
+		String decorated = decorate(facelet.toString(), viewId);
+
+		target.getParentFile().mkdirs();
+		Writer out = new OutputStreamWriter(new FileOutputStream(target), "UTF-8");
+		try {
+			out.write(decorated);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Parses a facelet and applies the AngularTagDecorator to each of its tags.
+	 * 
+	 * @param facelet
+	 *            the content of the facelet
+	 * @param viewId
+	 *            the view id of the facelet (used as location of the tags)
+	 * @return the decorated facelet
+	 * @throws Exception
+	 *             if the facelet isn't valid XML
+	 */
+	public String decorate(String facelet, String viewId) throws Exception {
+		// the byte order mark isn't part of the XML document
+		String source = facelet.startsWith("\uFEFF") ? facelet.substring(1) : facelet;
+		FaceletRewriter rewriter = new FaceletRewriter(source, viewId);
+		parserFactory.newSAXParser().parse(new InputSource(new StringReader(source)), rewriter);
+		return rewriter.getResult();
+	}
+
+	/** Copies the facelet, replacing the tags modified by the AngularTagDecorator. */
+	private class FaceletRewriter extends DefaultHandler {
+		private final String source;
+
+		private final String viewId;
+
+		/** The offset of the first character of each line. */
+		private final int[] lineStarts;
+
+		private final StringBuilder result;
+
+		/** The source has been copied to the result up to this offset. */
+		private int copied = 0;
+
+		private Locator locator;
+
+		private final NamespaceSupport namespaces = new NamespaceSupport();
+
+		private boolean contextPushed = false;
+
+		/** The new names of the end tags of the open elements, or null if the end tag remains unchanged. */
+		private final List<String> endTags = new ArrayList<String>();
+
+		FaceletRewriter(String source, String viewId) {
+			this.source = source;
+			this.viewId = viewId;
+			this.result = new StringBuilder(source.length() + source.length() / 4);
+			List<Integer> starts = new ArrayList<Integer>();
+			starts.add(0);
+			for (int i = 0; i < source.length(); i++) {
+				char c = source.charAt(i);
+				// the XML parser treats \n, \r\n and \r as line breaks
+				if (c == '\n' || (c == '\r' && (i + 1 == source.length() || source.charAt(i + 1) != '\n'))) {
+					starts.add(i + 1);
+				}
+			}
+			lineStarts = new int[starts.size()];
+			for (int i = 0; i < lineStarts.length; i++) {
+				lineStarts[i] = starts.get(i);
+			}
+		}
+
+		String getResult() {
+			return result.toString();
+		}
+
+		@Override
+		public void setDocumentLocator(Locator locator) {
+			this.locator = locator;
+		}
+
+		@Override
+		public void startPrefixMapping(String prefix, String uri) {
+			if (!contextPushed) {
+				namespaces.pushContext();
+				contextPushed = true;
+			}
+			namespaces.declarePrefix(prefix, uri);
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes) {
+			if (!contextPushed) {
+				namespaces.pushContext();
+			}
+			contextPushed = false;
+			int end = getOffset();
+			int start = findTagStart(end, qName);
+			Location location = new Location(viewId, getLine(start), start - lineStarts[getLine(start) - 1] + 1);
+			Tag tag = createTag(location, uri, localName, qName, attributes);
+			Tag decorated = decorator.decorate(tag);
+			if (null == decorated || decorated == tag) {
+				endTags.add(null);
+				return;
+			}
+			boolean empty = source.startsWith("/>", end - 2);
+			String newQName = getQName(decorated.getNamespace(), decorated.getLocalName(), uri, localName, qName);
+			result.append(source, copied, start);
+			appendStartTag(decorated, newQName, attributes, getLine(end - 1) - getLine(start), empty);
+			copied = end;
+			endTags.add(empty || newQName.equals(qName) ? null : newQName);
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) {
+			String endTag = endTags.remove(endTags.size() - 1);
+			namespaces.popContext();
+			if (null == endTag) {
+				return;
+			}
+			int end = getOffset();
+			int start = findTagStart(end, "/" + qName);
+			result.append(source, copied, start).append("</").append(endTag).append('>');
+			copied = end;
+		}
+
+		@Override
+		public void endDocument() {
+			result.append(source, copied, source.length());
+			copied = source.length();
+		}
+
+		/** @return the offset following the current event (i.e. following the tag) */
+		private int getOffset() {
+			return lineStarts[locator.getLineNumber() - 1] + locator.getColumnNumber() - 1;
+		}
+
+		/** A start tag can't contain a '&lt;' (attribute values have to escape it), so the last '&lt;' is the start of the tag. */
+		private int findTagStart(int end, String name) {
+			int start = source.lastIndexOf('<', end - 1);
+			if (start < 0 || source.charAt(end - 1) != '>' || !source.startsWith(name, start + 1)) {
+				throw new IllegalStateException("Can't locate the tag " + name + " in line " + locator.getLineNumber());
+			}
+			return start;
+		}
+
+		/** @return the line number (starting with 1) of an offset */
+		private int getLine(int offset) {
+			int low = 0;
+			int high = lineStarts.length - 1;
+			while (low < high) {
+				int middle = (low + high + 1) / 2;
+				if (lineStarts[middle] <= offset) {
+					low = middle;
+				} else {
+					high = middle - 1;
+				}
+			}
+			return low + 1;
+		}
+
+		private Tag createTag(Location location, String uri, String localName, String qName, Attributes attributes) {
+			List<TagAttribute> tagAttributes = new ArrayList<TagAttribute>(attributes.getLength());
+			for (int i = 0; i < attributes.getLength(); i++) {
+				String name = attributes.getQName(i);
+				if (isNamespaceDeclaration(name)) {
+					continue;
+				}
+				String ns = null == attributes.getURI(i) ? "" : attributes.getURI(i);
+				String attributeLocalName = attributes.getLocalName(i);
+				if (null == attributeLocalName || attributeLocalName.length() == 0) {
+					attributeLocalName = name;
+				}
+				tagAttributes.add(TagAttributeUtilities.createTagAttribute(location, ns, attributeLocalName, name,
+						attributes.getValue(i)));
+			}
+			AFTagAttributes all = new AFTagAttributes(tagAttributes.toArray(new TagAttribute[tagAttributes.size()]));
+			Tag tag = new Tag(location, null == uri ? "" : uri, localName.length() == 0 ? qName : localName, qName, all);
+			all.setTag(tag);
+			return tag;
+		}
+
+		private boolean isNamespaceDeclaration(String qName) {
+			return "xmlns".equals(qName) || qName.startsWith("xmlns:");
+		}
+
+		private String getQName(String ns, String localName, String originalNamespace, String originalLocalName, String originalQName) {
+			if (ns.equals(originalNamespace) && localName.equals(originalLocalName)) {
+				return originalQName;
+			}
+			if ("".equals(ns) || (AngularTagDecorator.HTML_NAMESPACE.equals(ns) && AngularTagDecorator.HTML_NAMESPACE.equals(namespaces.getURI("")))) {
+				return localName;
+			}
+			return getPrefix(ns, originalQName) + ":" + localName;
+		}
+
+		/** Declarations of namespaces the rewritten start tag uses, but the facelet doesn't declare. */
+		private final Map<String, String> newDeclarations = new LinkedHashMap<String, String>();
+
+		/** Finds the prefix of a namespace, declaring the namespace at the current element if necessary. */
+		private String getPrefix(String namespace, String qName) {
+			String prefix = namespaces.getPrefix(namespace);
+			if (null != prefix) {
+				return prefix;
+			}
+			prefix = PREFIXES.get(namespace);
+			if (null == prefix && qName.indexOf(':') > 0) {
+				prefix = qName.substring(0, qName.indexOf(':'));
+			}
+			String candidate = null == prefix ? "ns" : prefix;
+			prefix = candidate;
+			for (int i = 1; null != namespaces.getURI(prefix); i++) {
+				prefix = candidate + i;
+			}
+			// the declaration is visible to the descendants, too
+			namespaces.declarePrefix(prefix, namespace);
+			newDeclarations.put(prefix, namespace);
+			return prefix;
+		}
+
+		private void appendStartTag(Tag tag, String qName, Attributes originalAttributes, int lineBreaks, boolean empty) {
+			List<String> parts = new ArrayList<String>();
+			for (int i = 0; i < originalAttributes.getLength(); i++) {
+				if (isNamespaceDeclaration(originalAttributes.getQName(i))) {
+					parts.add(originalAttributes.getQName(i) + "=\"" + escape(originalAttributes.getValue(i)) + "\"");
+				}
+			}
+			for (TagAttribute a : tag.getAttributes().getAll()) {
+				String name = "".equals(a.getNamespace()) ? a.getLocalName() : getPrefix(a.getNamespace(), a.getQName()) + ":"
+						+ a.getLocalName();
+				parts.add(name + "=\"" + escape(a.getValue()) + "\"");
+			}
+			List<String> declarations = new ArrayList<String>();
+			for (Map.Entry<String, String> d : newDeclarations.entrySet()) {
+				declarations.add("xmlns:" + d.getKey() + "=\"" + escape(d.getValue()) + "\"");
+			}
+			newDeclarations.clear();
+			parts.addAll(0, declarations);
+
+			result.append('<').append(qName);
+			int remainingLineBreaks = lineBreaks;
+			for (String part : parts) {
+				if (remainingLineBreaks > 0) {
+					result.append("\n\t");
+					remainingLineBreaks--;
+				} else {
+					result.append(' ');
+				}
+				result.append(part);
+			}
+			for (; remainingLineBreaks > 0; remainingLineBreaks--) {
+				result.append('\n');
+			}
+			result.append(empty ? "/>" : ">");
+		}
+
+		private String escape(String value) {
+			StringBuilder escaped = new StringBuilder(value.length() + 16);
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				switch (c) {
+				case '&':
+					escaped.append("&amp;");
+					break;
+				case '<':
+					escaped.append("&lt;");
+					break;
+				case '"':
+					escaped.append("&quot;");
+					break;
+				default:
+					escaped.append(c);
+				}
+			}
+			return escaped.toString();
+		}
+	}
+}
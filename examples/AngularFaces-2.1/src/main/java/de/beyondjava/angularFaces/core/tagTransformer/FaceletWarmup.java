@@ -0,0 +1,120 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.application.Application;
+import javax.faces.component.UIViewRoot;
+import javax.faces.context.ExternalContext;
+import javax.faces.context.FacesContext;
+import javax.faces.event.AbortProcessingException;
+import javax.faces.event.PostConstructApplicationEvent;
+import javax.faces.event.SystemEvent;
+import javax.faces.event.SystemEventListener;
+import javax.faces.view.ViewDeclarationLanguage;
+
+/**
+ * Compiles every facelet of the application at startup, so the first user of each view doesn't have to wait for the facelet to be
+ * parsed and decorated. The warm-up is opt-in: set the context parameter <code>de.beyondjava.angularFaces.WARMUP</code> to true.
+ * <p>
+ * The views are compiled one after another by the JSF implementation. Compiling them on a pool of worker threads doesn't work: the
+ * FacesContext, the view handler and the facelet cache of the JSF implementation are bound to the startup thread. The warm-up runs
+ * while the application is started, so the container doesn't accept requests before it's finished.
+ * <p>
+ * When the warm-up has finished, the application attribute {@link #WARMUP_COMPLETE} is set to true. It's also a servlet context
+ * attribute, so the health check queried by a load balancer can report the node as ready only when its facelets are compiled.
+ */
+public class FaceletWarmup implements SystemEventListener {
+	public static final String WARMUP = "de.beyondjava.angularFaces.WARMUP";
+
+	/**
+	 * Application attribute set to Boolean.TRUE when the views have been compiled. It's set immediately if the warm-up is off, so it
+	 * can be used as a readiness flag either way.
+	 */
+	public static final String WARMUP_COMPLETE = "de.beyondjava.angularFaces.WARMUP_COMPLETE";
+
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.tagTransformer.FaceletWarmup");
+
+	@Override
+	public boolean isListenerForSource(Object source) {
+		return source instanceof Application;
+	}
+
+	@Override
+	public void processEvent(SystemEvent event) throws AbortProcessingException {
+		if (!(event instanceof PostConstructApplicationEvent)) {
+			return;
+		}
+		FacesContext context = FacesContext.getCurrentInstance();
+		ExternalContext externalContext = context.getExternalContext();
+		if ("true".equalsIgnoreCase(externalContext.getInitParameter(WARMUP))) {
+			long timer = System.nanoTime();
+			List<String> viewIds = new ArrayList<String>();
+			findViews(externalContext, "/", viewIds);
+			compileViews(context, viewIds);
+			LOGGER.info("Warm-up of " + viewIds.size() + " views: " + ((System.nanoTime() - timer) / 1000) / 1000.0d + " ms");
+		}
+		externalContext.getApplicationMap().put(WARMUP_COMPLETE, Boolean.TRUE);
+	}
+
+	private void findViews(ExternalContext externalContext, String path, List<String> viewIds) {
+		Set<String> paths = externalContext.getResourcePaths(path);
+		if (null == paths) {
+			return;
+		}
+		for (String p : paths) {
+			if (p.startsWith("/WEB-INF/") || p.startsWith("/META-INF/") || p.startsWith("/resources/")) {
+				// templates and composite components are compiled by the views using them
+				continue;
+			}
+			if (p.endsWith("/")) {
+				findViews(externalContext, p, viewIds);
+			} else if (p.endsWith(".xhtml")) {
+				viewIds.add(p);
+			}
+		}
+	}
+
+	private void compileViews(FacesContext context, List<String> viewIds) {
+		UIViewRoot previousViewRoot = context.getViewRoot();
+		try {
+			for (String viewId : viewIds) {
+				long timer = System.nanoTime();
+				try {
+					ViewDeclarationLanguage vdl = context.getApplication().getViewHandler().getViewDeclarationLanguage(context, viewId);
+					if (null != vdl) {
+						UIViewRoot root = vdl.createView(context, viewId);
+						context.setViewRoot(root);
+						vdl.buildView(context, root);
+					}
+				} catch (Exception e) {
+					// The facelet has been compiled and cached before the tags are applied, so errors caused by the missing request
+					// don't matter.
+					LOGGER.log(Level.FINE, "Warm-up of " + viewId + " has been incomplete", e);
+				}
+				LOGGER.info(((System.nanoTime() - timer) / 1000) / 1000.0d + " ms warm-up of " + viewId);
+			}
+		} finally {
+			context.setViewRoot(previousViewRoot);
+		}
+	}
+}
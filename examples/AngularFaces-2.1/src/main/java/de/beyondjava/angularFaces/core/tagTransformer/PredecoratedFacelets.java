@@ -0,0 +1,98 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import javax.faces.context.FacesContext;
+import javax.faces.view.Location;
+
+/**
+ * Knows which facelets have already been decorated at build time by the {@link FaceletPreDecorator}. The AngularTagDecorator leaves the
+ * tags of these facelets alone. It only records them in the {@link AngularModelManifest}.
+ */
+public final class PredecoratedFacelets {
+	/** The list of pre-decorated facelets written by the FaceletPreDecorator. */
+	public static final String MARKER_FILE = "/WEB-INF/angularfaces-predecorated.txt";
+
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.tagTransformer.PredecoratedFacelets");
+
+	private static volatile Set<String> paths;
+
+	private PredecoratedFacelets() {
+	}
+
+	/**
+	 * Has the facelet containing the tag already been decorated at build time?
+	 * 
+	 * @param location
+	 *            the location of the tag
+	 * @return true if the tag mustn't be decorated again
+	 */
+	public static boolean isPredecorated(Location location) {
+		Set<String> p = paths;
+		if (null == p) {
+			p = loadMarkerFile();
+		}
+		if (p.isEmpty() || null == location || null == location.getPath()) {
+			return false;
+		}
+		return p.contains(location.getPath());
+	}
+
+	private static synchronized Set<String> loadMarkerFile() {
+		if (null != paths) {
+			return paths;
+		}
+		FacesContext context = FacesContext.getCurrentInstance();
+		if (null == context) {
+			// can't read the marker file yet - try again with the next tag
+			return Collections.emptySet();
+		}
+		Set<String> result = new HashSet<String>();
+		InputStream marker = context.getExternalContext().getResourceAsStream(MARKER_FILE);
+		if (null != marker) {
+			try {
+				BufferedReader reader = new BufferedReader(new InputStreamReader(marker, "UTF-8"));
+				try {
+					String line;
+					while (null != (line = reader.readLine())) {
+						line = line.trim();
+						if (line.length() > 0) {
+							result.add(line);
+						}
+					}
+				} finally {
+					reader.close();
+				}
+			} catch (IOException e) {
+				LOGGER.severe("Couldn't read " + MARKER_FILE + ". The facelets will be decorated at runtime.");
+				result.clear();
+			}
+			LOGGER.info(result.size() + " facelets have been decorated at build time.");
+		}
+		paths = Collections.unmodifiableSet(result);
+		return paths;
+	}
+}
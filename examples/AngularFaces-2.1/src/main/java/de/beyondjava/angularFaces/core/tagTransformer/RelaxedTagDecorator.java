@@ -42,8 +42,10 @@
  */
 package de.beyondjava.angularFaces.core.tagTransformer;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import javax.faces.render.Renderer;
 import javax.faces.view.Location;
@@ -103,6 +105,22 @@ public class RelaxedTagDecorator implements TagDecorator {
         }
     }
 
+    /** The mappers, indexed by the name of the HTML tag. */
+    private static final Map<String, Mapper> MAPPERS = new HashMap<String, Mapper>();
+
+    static {
+        for (Mapper mapper : Mapper.values()) {
+            MAPPERS.put(mapper.name(), mapper);
+        }
+    }
+
+    /**
+     * @return the names of the HTML tags converted by this decorator
+     */
+    public static Set<String> getTagNames() {
+        return Collections.unmodifiableSet(MAPPERS.keySet());
+    }
+
     public Tag decorate(Tag tag) {
         String ns = tag.getNamespace();
         // we only handle html tags!
@@ -114,10 +132,9 @@ public class RelaxedTagDecorator implements TagDecorator {
                     " is intended for otherwise non-JSF-aware markup, such as <input type=\"text\" jsf:id >" +
                     " It is not valid to have <h:commandButton jsf:id=\"button\" />.");
         }
-        for (Mapper mapper : Mapper.values()) {
-            if (tag.getLocalName().equals(mapper.name())) {
-                return mapper.elementConverter.decorate(tag);
-            }
+        Mapper mapper = MAPPERS.get(tag.getLocalName());
+        if (null != mapper) {
+            return mapper.elementConverter.decorate(tag);
         }
 
         return null;
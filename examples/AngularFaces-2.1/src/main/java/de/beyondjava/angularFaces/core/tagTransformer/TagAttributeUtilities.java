@@ -16,27 +16,90 @@
  */
 package de.beyondjava.angularFaces.core.tagTransformer;
 
-import java.lang.reflect.Constructor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.logging.Logger;
 
 import javax.faces.view.Location;
 import javax.faces.view.facelets.TagAttribute;
 
-/** Create a tag attribute by means of reflection (so that they work with both Mojarra and MyFaces). */
+/**
+ * Create a tag attribute by means of a method handle (so that they work with both Mojarra and MyFaces). The JSF implementation is
+ * detected only once, when the class is loaded, and the constructor of its TagAttribute is bound to a constant MethodHandle.
+ * <p>
+ * Namespaces, names and qualified names are repeated in every view, so they're interned. The string table of the JVM can be used
+ * without a lock and doesn't keep unused strings alive. The values are mostly unique (ng-model expressions, attribute lists), so
+ * they aren't interned.
+ * <p>
+ * The tag attributes themselves aren't shared between tags, even if they're equal: each attribute carries the Location used by the
+ * error messages, the Tag it belongs to is set by the TagAttributes containing it, and MyFaces caches the expressions created from
+ * it. Interning only avoids duplicate strings; it's not meant to reduce the size of the Facelets cache noticeably.
+ */
 public class TagAttributeUtilities {
-    public static TagAttribute createTagAttribute(Location location, String ns, String myLocalName, String qName, String value) {
-    	try {
-    		Class<?> implClass;
-    		try {
-    	implClass = Class.forName("org.apache.myfaces.view.facelets.tag.TagAttributeImpl");
-    		} catch (Exception e) {
-    	implClass = Class.forName("com.sun.faces.facelets.tag.TagAttributeImpl");
-    		}
-    		Constructor<?> constructor = implClass.getConstructor(Location.class, String.class, String.class, String.class, String.class);
-    		Object newTagAttribute = constructor.newInstance(location, ns, myLocalName, qName, value);
-			return (TagAttribute) newTagAttribute;
-    	} catch (ReflectiveOperationException e) {
-    		throw new IllegalArgumentException("Couldn't create neither a Oracle Mojarra Tag attribute nor an Apache MyFaces TagAttribute", e);
-    	}
-    }
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.tagTransformer.TagAttributeUtilities");
+
+	private static final String[] IMPLEMENTATIONS = { "org.apache.myfaces.view.facelets.tag.TagAttributeImpl",
+			"com.sun.faces.facelets.tag.TagAttributeImpl" };
+
+	/** The signature of the constructor, adapted to return the TagAttribute interface type so it can be invoked exactly. */
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(TagAttribute.class, Location.class, String.class,
+			String.class, String.class, String.class);
+
+	private static final MethodHandle constructor = findConstructor();
+
+	private static MethodHandle findConstructor() {
+		for (String className : IMPLEMENTATIONS) {
+			try {
+				Class<?> implClass = Class.forName(className);
+				MethodHandle c = MethodHandles.publicLookup().findConstructor(implClass,
+						CONSTRUCTOR_TYPE.changeReturnType(void.class));
+				LOGGER.fine("AngularFaces creates tag attributes using " + className);
+				return c.asType(CONSTRUCTOR_TYPE);
+			} catch (ClassNotFoundException notAnError) {
+				// let's try the next JSF implementation
+			} catch (ReflectiveOperationException e) {
+				LOGGER.severe("Unsupported version of " + className + ": the constructor of the tag attribute has changed.");
+			}
+		}
+		return null;
+	}
+
+	public static TagAttribute createTagAttribute(Location location, String ns, String myLocalName, String qName, String value) {
+		if (null == constructor) {
+			throw new IllegalArgumentException("Couldn't create neither a Oracle Mojarra Tag attribute nor an Apache MyFaces TagAttribute");
+		}
+		try {
+			return (TagAttribute) constructor.invokeExact(location, intern(ns), intern(myLocalName), intern(qName), value);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalArgumentException("Couldn't create neither a Oracle Mojarra Tag attribute nor an Apache MyFaces TagAttribute", e);
+		}
+	}
+
+	private static String intern(String s) {
+		return null == s ? null : s.intern();
+	}
+
+	/**
+	 * Creates a copy of each attribute of an array, moving it to another namespace.
+	 * 
+	 * @param attributes
+	 *            the attributes to be copied
+	 * @param ns
+	 *            the namespace of the new attributes
+	 * @return a new array containing the new attributes in the same order
+	 */
+	public static TagAttribute[] createTagAttributes(TagAttribute[] attributes, String ns) {
+		TagAttribute[] result = new TagAttribute[attributes.length];
+		for (int i = 0; i < attributes.length; i++) {
+			TagAttribute a = attributes[i];
+			result[i] = createTagAttribute(a.getLocation(), ns, a.getLocalName(), a.getQName(), a.getValue());
+		}
+		return result;
+	}
 
 }
@@ -0,0 +1,56 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+/**
+ * Describes how an HTML tag is converted to a JSF tag.
+ */
+public final class TagMapping {
+	/** Who converts the tag? */
+	public static enum Kind {
+		/** The tag is converted by the RelaxedTagDecorator (HTML5 friendly markup). */
+		RELAXED,
+		/** The tag is converted to a tag of a component library (such as BootsFaces), keeping its local name. */
+		COMPONENT_LIBRARY
+	}
+
+	private final Kind kind;
+
+	private final String namespace;
+
+	private final String localName;
+
+	public TagMapping(Kind kind, String namespace, String localName) {
+		this.kind = kind;
+		this.namespace = namespace;
+		this.localName = localName;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	/** @return the namespace of the JSF tag */
+	public String getNamespace() {
+		return namespace;
+	}
+
+	/** @return the local name of the JSF tag */
+	public String getLocalName() {
+		return localName;
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.context.FacesContext;
+
+/**
+ * Immutable registry of the HTML tags converted to JSF tags. It's built once per application and stored in the application map, so
+ * applications sharing the AngularFaces jar don't share the mappings of their component libraries. The mappings of the
+ * RelaxedTagDecorator come first, followed by the mappings contributed by the {@link TagMappingProvider}s found by the ServiceLoader.
+ */
+public final class TagMappingRegistry {
+	/** Application map attribute containing the registry. */
+	private static final String REGISTRY = "de.beyondjava.angularFaces.tagMappingRegistry";
+
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.tagTransformer.TagMappingRegistry");
+
+	/** namespace -> local name -> mapping */
+	private final Map<String, Map<String, TagMapping>> mappings;
+
+	private TagMappingRegistry(Map<String, Map<String, TagMapping>> mappings) {
+		this.mappings = mappings;
+	}
+
+	/**
+	 * Returns the registry of the current application, building it if necessary.
+	 * 
+	 * @return the registry stored in the application map. Without a FacesContext (e.g. in the FaceletPreDecorator), a new registry.
+	 */
+	public static TagMappingRegistry getInstance() {
+		FacesContext context = FacesContext.getCurrentInstance();
+		if (null == context) {
+			return createRegistry();
+		}
+		Map<String, Object> applicationMap = context.getExternalContext().getApplicationMap();
+		TagMappingRegistry registry = (TagMappingRegistry) applicationMap.get(REGISTRY);
+		if (null == registry) {
+			// concurrent callers may build the registry twice, but their registries are equal
+			registry = createRegistry();
+			applicationMap.put(REGISTRY, registry);
+		}
+		return registry;
+	}
+
+	private static TagMappingRegistry createRegistry() {
+		Builder builder = new Builder();
+		for (String tag : RelaxedTagDecorator.getTagNames()) {
+			TagMapping mapping = new TagMapping(TagMapping.Kind.RELAXED, null, tag);
+			builder.map("", tag, mapping);
+			builder.map(AngularTagDecorator.HTML_NAMESPACE, tag, mapping);
+		}
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		if (null == classLoader) {
+			classLoader = TagMappingRegistry.class.getClassLoader();
+		}
+		Iterator<TagMappingProvider> providers = ServiceLoader.load(TagMappingProvider.class, classLoader).iterator();
+		try {
+			while (providers.hasNext()) {
+				TagMappingProvider provider = providers.next();
+				provider.registerMappings(builder);
+				LOGGER.fine("Tag mappings registered by " + provider.getClass().getName());
+			}
+		} catch (ServiceConfigurationError e) {
+			LOGGER.log(Level.SEVERE, "Couldn't load the tag mappings of a component library", e);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Finds the mapping of a tag.
+	 * 
+	 * @param namespace
+	 *            namespace of the tag
+	 * @param localName
+	 *            local name of the tag
+	 * @return null if the tag isn't mapped
+	 */
+	public TagMapping lookup(String namespace, String localName) {
+		Map<String, TagMapping> byName = mappings.get(namespace);
+		if (null == byName) {
+			return null;
+		}
+		return byName.get(localName);
+	}
+
+	/** Collects the mappings of the registry. */
+	public static final class Builder {
+		private final Map<String, Map<String, TagMapping>> mappings = new HashMap<String, Map<String, TagMapping>>();
+
+		private Builder() {
+		}
+
+		/**
+		 * Adds a mapping. Mappings registered later replace earlier mappings of the same tag.
+		 * 
+		 * @param namespace
+		 *            the namespace of the HTML tag ("" or the XHTML namespace)
+		 * @param localName
+		 *            the name of the HTML tag
+		 * @param mapping
+		 *            describes the JSF tag
+		 * @return the builder
+		 */
+		public Builder map(String namespace, String localName, TagMapping mapping) {
+			Map<String, TagMapping> byName = mappings.get(namespace);
+			if (null == byName) {
+				byName = new HashMap<String, TagMapping>();
+				mappings.put(namespace, byName);
+			}
+			byName.put(localName, mapping);
+			return this;
+		}
+
+		private TagMappingRegistry build() {
+			Map<String, Map<String, TagMapping>> frozen = new HashMap<String, Map<String, TagMapping>>();
+			for (Map.Entry<String, Map<String, TagMapping>> e : mappings.entrySet()) {
+				frozen.put(e.getKey(), Collections.unmodifiableMap(new HashMap<String, TagMapping>(e.getValue())));
+			}
+			return new TagMappingRegistry(Collections.unmodifiableMap(frozen));
+		}
+	}
+}
@@ -20,11 +20,14 @@ import javax.faces.component.UIComponent;
 import javax.faces.component.visit.VisitCallback;
 import javax.faces.component.visit.VisitContext;
 import javax.faces.component.visit.VisitResult;
-import javax.faces.context.FacesContext;
 
 import de.beyondjava.angularFaces.components.puiModelSync.PuiModelSync;
+import de.beyondjava.angularFaces.core.tagTransformer.AngularModelManifest;
 
-/** Collects the attributes that have to be synchronized with the client. */
+/**
+ * Collects the attributes that have to be synchronized with the client. They're registered with PuiModelSync along with the component
+ * they belong to.
+ */
 public class AddNGModelAndIDCallback implements VisitCallback {
 
 	@Override
@@ -38,13 +41,17 @@ public class AddNGModelAndIDCallback implements VisitCallback {
 			}
 			String cacheable = AttributeUtilities.getAttributeAsString(component, "cacheable");
 			boolean isCacheable = ("true".equalsIgnoreCase(cacheable));
-			String[] attributes = attributeList.split(",");
-			for (String angularExpression : attributes) {
-				PuiModelSync.addJSFAttrbitute(angularExpression.substring(2, angularExpression.length() - 2), component, isCacheable,
-						onlyOnce);
+			// the expressions have usually been parsed when the facelet was compiled
+			for (String expression : AngularModelManifest.getExpressions(attributeList)) {
+				register(expression, component, isCacheable, onlyOnce);
 			}
 		}
 		return VisitResult.ACCEPT;
 	}
 
+	/** Registers an attribute with PuiModelSync. */
+	protected void register(String expression, UIComponent component, boolean cacheable, boolean once) {
+		PuiModelSync.addJSFAttrbitute(expression, component, cacheable, once);
+	}
+
 }
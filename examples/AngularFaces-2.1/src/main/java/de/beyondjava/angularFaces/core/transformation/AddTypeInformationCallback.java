@@ -17,9 +17,21 @@
 package de.beyondjava.angularFaces.core.transformation;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import javax.faces.FacesException;
 import javax.faces.application.Application;
 import javax.faces.component.UIComponent;
 import javax.faces.component.UIInput;
@@ -27,51 +39,181 @@ import javax.faces.component.visit.VisitCallback;
 import javax.faces.component.visit.VisitContext;
 import javax.faces.component.visit.VisitResult;
 import javax.faces.context.FacesContext;
+import javax.faces.event.AbortProcessingException;
+import javax.faces.event.PreDestroyApplicationEvent;
+import javax.faces.event.SystemEvent;
+import javax.faces.event.SystemEventListener;
 import javax.faces.view.ViewDeclarationLanguage;
 
+import de.beyondjava.angularFaces.core.BeanProperty;
 import de.beyondjava.angularFaces.core.ELTools;
 import de.beyondjava.angularFaces.core.NGBeanAttributeInfo;
+import de.beyondjava.angularFaces.core.NGBeanAttributeInfoCache;
 
-/** Brings JSR 303 annotations to the client. */
-public class AddTypeInformationCallback implements VisitCallback {
+/**
+ * Brings JSR 303 annotations to the client. The callback only collects the input fields and the bean properties they're bound to.
+ * {@link #apply(boolean)} reads the annotations - in parallel, if there are many bean properties that haven't been read before -
+ * and modifies the components. The thread pool is shut down when the application is shut down, so its threads don't keep the class
+ * loader of an undeployed application alive.
+ */
+public class AddTypeInformationCallback implements VisitCallback, SystemEventListener {
+
+	/** Below this number of bean properties that haven't been read yet, the annotations are read by the request thread. */
+	private static final int PARALLEL_ANALYSIS_THRESHOLD = 8;
+
+	private static ForkJoinPool analysisPool = null;
+
+	/** The input fields found during the visit, and the bean properties they're bound to. */
+	private final Map<UIComponent, BeanProperty> inputFields = new LinkedHashMap<UIComponent, BeanProperty>();
 
 	@Override
 	public VisitResult visit(VisitContext arg0, UIComponent component) {
-		if (component instanceof UIInput) {
-			NGBeanAttributeInfo infos = ELTools.getBeanAttributeInfos(component);
-			if (infos.isRequired()) {
-				if ("".equals(AttributeUtilities.getAttribute(component, "required"))
-						|| false == (Boolean)AttributeUtilities.getAttribute(component, "required")) {
-					((UIInput) component).setRequired(true);
-					component.getPassThroughAttributes().put("required", "");
+		if (component instanceof UIInput && !inputFields.containsKey(component)) {
+			// the bean has to be evaluated during the visit, because it may depend on the row of a data table
+			BeanProperty property = ELTools.getBeanProperty(component);
+			if (null != property) {
+				inputFields.put(component, property);
+			}
+		}
+		return VisitResult.ACCEPT;
+	}
+
+	/**
+	 * Reads the JSR 303 annotations of the bean properties found during the visit and adds the type information to the input fields.
+	 * Has to be called by the request thread after visiting the component tree.
+	 * 
+	 * @param addHints
+	 *            if false, only the required flag is set. The other type hints - min, max, length and type - are skipped.
+	 */
+	public void apply(boolean addHints) {
+		if (inputFields.isEmpty()) {
+			return;
+		}
+		Map<BeanProperty, NGBeanAttributeInfo> infos = analyse();
+		for (Map.Entry<UIComponent, BeanProperty> inputField : inputFields.entrySet()) {
+			applyTypeInformation(inputField.getKey(), infos.get(inputField.getValue()), addHints);
+		}
+	}
+
+	/**
+	 * Reads the annotations of each distinct bean property. Most properties have been read by a previous request, so they're taken
+	 * from the NGBeanAttributeInfoCache. Handing a property to the thread pool costs more than reading it from the cache, so only
+	 * the properties that haven't been read yet are read in parallel. This only requires reflection.
+	 */
+	private Map<BeanProperty, NGBeanAttributeInfo> analyse() {
+		Set<BeanProperty> properties = new LinkedHashSet<BeanProperty>();
+		Map<BeanProperty, NGBeanAttributeInfo> infos = new HashMap<BeanProperty, NGBeanAttributeInfo>();
+		for (BeanProperty property : inputFields.values()) {
+			if (!infos.containsKey(property)) {
+				NGBeanAttributeInfo info = NGBeanAttributeInfoCache.getIfCached(property);
+				if (null == info) {
+					properties.add(property);
+				} else {
+					infos.put(property, info);
 				}
 			}
-			if (infos.getMax() > 0) {
-				if (null == AttributeUtilities.getAttribute(component, "max"))
-					component.getPassThroughAttributes().put("max", infos.getMax());
+		}
+		if (properties.size() < PARALLEL_ANALYSIS_THRESHOLD || Runtime.getRuntime().availableProcessors() < 2) {
+			for (BeanProperty property : properties) {
+				infos.put(property, ELTools.getBeanAttributeInfos(property));
 			}
-			if (infos.getMin() > 0) {
-				if (null == AttributeUtilities.getAttribute(component, "min"))
-					component.getPassThroughAttributes().put("min", infos.getMin());
+			return infos;
+		}
+		List<BeanProperty> keys = new ArrayList<BeanProperty>(properties);
+		List<Callable<NGBeanAttributeInfo>> tasks = new ArrayList<Callable<NGBeanAttributeInfo>>(keys.size());
+		for (final BeanProperty property : keys) {
+			tasks.add(new Callable<NGBeanAttributeInfo>() {
+				public NGBeanAttributeInfo call() {
+					return ELTools.getBeanAttributeInfos(property);
+				}
+			});
+		}
+		try {
+			// invokeAll() returns the results in the order of the tasks
+			List<Future<NGBeanAttributeInfo>> results = getAnalysisPool().invokeAll(tasks);
+			for (int i = 0; i < results.size(); i++) {
+				infos.put(keys.get(i), results.get(i).get());
 			}
-			if (infos.getMaxSize() > 0) {
-				component.getPassThroughAttributes().put("ng-maxlength", infos.getMaxSize());
-				final Object ml = AttributeUtilities.getAttribute(component, "maxlength");
-				int maxlength=ml instanceof Long? ((Long)ml).intValue():(Integer) ml;
-				if (maxlength<0) {
-					component.getPassThroughAttributes().put("maxlength", infos.getMaxSize());
-				} else 
-					component.getPassThroughAttributes().put("ng-maxlength", maxlength);
-				
-
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Reading the JSR 303 annotations has been interrupted", e);
+		} catch (ExecutionException e) {
+			// don't render the view with missing type information, just as if the annotations had been read by the request thread
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
 			}
-			if (infos.getMinSize() > 0) {
-				component.getPassThroughAttributes().put("ng-minlength", infos.getMinSize());
+			throw new FacesException("Couldn't read the JSR 303 annotations", e.getCause());
+		}
+		return infos;
+	}
+
+	private static synchronized ForkJoinPool getAnalysisPool() {
+		if (null == analysisPool) {
+			analysisPool = new ForkJoinPool();
+		}
+		return analysisPool;
+	}
+
+	private static synchronized void shutdownAnalysisPool() {
+		if (null != analysisPool) {
+			analysisPool.shutdownNow();
+			analysisPool = null;
+		}
+	}
+
+	@Override
+	public boolean isListenerForSource(Object source) {
+		return source instanceof Application;
+	}
+
+	@Override
+	public void processEvent(SystemEvent event) throws AbortProcessingException {
+		if (event instanceof PreDestroyApplicationEvent) {
+			shutdownAnalysisPool();
+		}
+	}
+
+	private void applyTypeInformation(UIComponent component, NGBeanAttributeInfo infos, boolean addHints) {
+		if (null == infos) {
+			return;
+		}
+		if (infos.isRequired()) {
+			if ("".equals(AttributeUtilities.getAttribute(component, "required"))
+					|| false == (Boolean)AttributeUtilities.getAttribute(component, "required")) {
+				((UIInput) component).setRequired(true);
+				AddedAttributes.addedToViewState(FacesContext.getCurrentInstance(), "required", Boolean.TRUE);
+				AddedAttributes.put(component, "required", "");
 			}
-			if (infos.isNumeric()) {
-				setType(component, "number");
-			} else if (infos.isDate()) {
-				setType(component, "date");
+		}
+		if (!addHints) {
+			return;
+		}
+		if (infos.getMax() > 0) {
+			if (null == AttributeUtilities.getAttribute(component, "max"))
+				AddedAttributes.put(component, "max", infos.getMax());
+		}
+		if (infos.getMin() > 0) {
+			if (null == AttributeUtilities.getAttribute(component, "min"))
+				AddedAttributes.put(component, "min", infos.getMin());
+		}
+		if (infos.getMaxSize() > 0) {
+			AddedAttributes.put(component, "ng-maxlength", infos.getMaxSize());
+			final Object ml = AttributeUtilities.getAttribute(component, "maxlength");
+			int maxlength=ml instanceof Long? ((Long)ml).intValue():(Integer) ml;
+			if (maxlength<0) {
+				AddedAttributes.put(component, "maxlength", infos.getMaxSize());
+			} else 
+				AddedAttributes.put(component, "ng-maxlength", maxlength);
+			
+
+		}
+		if (infos.getMinSize() > 0) {
+			AddedAttributes.put(component, "ng-minlength", infos.getMinSize());
+		}
+		if (infos.isNumeric()) {
+			setType(component, "number");
+		} else if (infos.isDate()) {
+			setType(component, "date");
 //				Iterator<UIComponent> facetsAndChildren = component.getFacetsAndChildren();
 //				while (facetsAndChildren.hasNext()) {
 //					UIComponent c = facetsAndChildren.next();
@@ -85,11 +227,9 @@ public class AddTypeInformationCallback implements VisitCallback {
 //				Locale locale = context.getExternalContext().getRequestLocale();
 ////				converter.setLocal(locale);
 //				component.getChildren().add(converter);
-			} else if (infos.isBoolean()) {
-				setType(component, "checkbox");
-			}
+		} else if (infos.isBoolean()) {
+			setType(component, "checkbox");
 		}
-		return VisitResult.ACCEPT;
 	}
 
 	private void setType(UIComponent component, String type) {
@@ -99,15 +239,21 @@ public class AddTypeInformationCallback implements VisitCallback {
 				method = component.getClass().getMethod("getType");
 				Object previousType = method.invoke(component);
 				if (previousType == null || "text".equals(previousType)) {
-					method = component.getClass().getMethod("setType", String.class);
-					method.invoke(component, type);
+					if (AddedAttributes.isTransient(FacesContext.getCurrentInstance())) {
+						// the AngularResponseWriter replaces the default type
+						AddedAttributes.put(component, "type", type);
+					} else {
+						method = component.getClass().getMethod("setType", String.class);
+						method.invoke(component, type);
+						AddedAttributes.addedToViewState(FacesContext.getCurrentInstance(), "type", type);
+					}
 				}
 			} catch (ReflectiveOperationException e) {
 				// catch block required by compiler, can't happen in reality
 			}
 		} else {
 			if (null == component.getAttributes().get("type") && null == component.getPassThroughAttributes().get("type")) {
-				component.getPassThroughAttributes().put("type", type);
+				AddedAttributes.put(component, "type", type);
 			}
 		}
 	}
@@ -0,0 +1,139 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.component.TransientStateHelper;
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIViewRoot;
+import javax.faces.context.FacesContext;
+
+import de.beyondjava.angularFaces.core.ContextParameters;
+
+/**
+ * The attributes AngularFaces adds to the components. By default, they are pass-through attributes, so they become part of the view
+ * state. If TRANSIENT_ATTRIBUTES is set, they are stored in the transient state of the component instead, and the
+ * AngularResponseWriter writes them to the HTML code. In this case they are rebuilt on every request from the cached bean metadata.
+ */
+public class AddedAttributes {
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.transformation.AddedAttributes");
+
+	/**
+	 * Context parameter: if true, the attributes added by AngularFaces aren't stored in the view state. Postbacks always transform the
+	 * view completely, including the AngularFaces AJAX requests, so don't combine it with INCREMENTAL_TRANSFORMATION.
+	 */
+	public static final String TRANSIENT_ATTRIBUTES = "de.beyondjava.angularFaces.TRANSIENT_ATTRIBUTES";
+
+	/** Key of the attributes in the transient state of the component. */
+	private static final String TRANSIENT_ATTRIBUTES_KEY = "de.beyondjava.angularFaces.addedAttributes";
+
+	/** Request attribute collecting the names and values stored in the view state, if the diagnostic is active. */
+	private static final String VIEW_STATE_ATTRIBUTES = "de.beyondjava.angularFaces.viewStateAttributes";
+
+	/**
+	 * Are the attributes stored in the transient state of the components?
+	 * 
+	 * @param context
+	 *            the current FacesContext
+	 * @return the value of the context parameter TRANSIENT_ATTRIBUTES
+	 */
+	public static boolean isTransient(FacesContext context) {
+		return ContextParameters.isTrue(context, TRANSIENT_ATTRIBUTES);
+	}
+
+	/** Adds an attribute that's rendered as it is, like a pass-through attribute. */
+	static void put(UIComponent component, String name, Object value) {
+		FacesContext context = FacesContext.getCurrentInstance();
+		if (isTransient(context)) {
+			TransientStateHelper helper = component.getTransientStateHelper();
+			@SuppressWarnings("unchecked")
+			Map<String, Object> attributes = (Map<String, Object>) helper.getTransient(TRANSIENT_ATTRIBUTES_KEY);
+			if (null == attributes) {
+				attributes = new LinkedHashMap<String, Object>();
+				helper.putTransient(TRANSIENT_ATTRIBUTES_KEY, attributes);
+			}
+			attributes.put(name, value);
+		} else {
+			component.getPassThroughAttributes().put(name, value);
+			addedToViewState(context, name, value);
+		}
+	}
+
+	/**
+	 * Returns the attributes stored in the transient state of a component.
+	 * 
+	 * @return null if there are no such attributes
+	 */
+	@SuppressWarnings("unchecked")
+	static Map<String, Object> getTransientAttributes(UIComponent component) {
+		TransientStateHelper helper = component.getTransientStateHelper(false);
+		if (null == helper) {
+			return null;
+		}
+		return (Map<String, Object>) helper.getTransient(TRANSIENT_ATTRIBUTES_KEY);
+	}
+
+	/** Records an attribute that's stored in the view state, so it can be reported by {@link #logViewStateContribution}. */
+	static void addedToViewState(FacesContext context, String name, Object value) {
+		if (!LOGGER.isLoggable(Level.FINE)) {
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		List<Object> attributes = (List<Object>) context.getAttributes().get(VIEW_STATE_ATTRIBUTES);
+		if (null == attributes) {
+			attributes = new ArrayList<Object>();
+			context.getAttributes().put(VIEW_STATE_ATTRIBUTES, attributes);
+		}
+		attributes.add(name);
+		attributes.add(value);
+	}
+
+	/**
+	 * Diagnostic: logs how many bytes the attributes added by AngularFaces during the current request contribute to the view state,
+	 * before compression. The PuiModelSync component isn't included.
+	 */
+	static void logViewStateContribution(FacesContext context, UIViewRoot root) {
+		if (!LOGGER.isLoggable(Level.FINE)) {
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		List<Object> attributes = (List<Object>) context.getAttributes().remove(VIEW_STATE_ATTRIBUTES);
+		if (null == attributes) {
+			LOGGER.fine("AngularFaces doesn't add attributes to the view state of " + root.getViewId());
+			return;
+		}
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(attributes);
+			out.close();
+			LOGGER.fine("AngularFaces adds " + attributes.size() / 2 + " attributes (" + bytes.size()
+					+ " bytes before compression) to the view state of " + root.getViewId());
+		} catch (IOException e) {
+			LOGGER.log(Level.FINE, "Couldn't measure the view state of " + root.getViewId(), e);
+		}
+	}
+}
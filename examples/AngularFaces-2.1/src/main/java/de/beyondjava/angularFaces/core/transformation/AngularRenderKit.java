@@ -0,0 +1,46 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import java.io.Writer;
+
+import javax.faces.context.ResponseWriter;
+import javax.faces.render.RenderKit;
+import javax.faces.render.RenderKitWrapper;
+
+/** Helper class wrapping the response writer in an AngularResponseWriter. */
+public class AngularRenderKit extends RenderKitWrapper {
+	private RenderKit wrappedRenderKit;
+
+	public AngularRenderKit(RenderKit renderKit) {
+		this.wrappedRenderKit = renderKit;
+	}
+
+	@Override
+	public RenderKit getWrapped() {
+		return wrappedRenderKit;
+	}
+
+	@Override
+	public ResponseWriter createResponseWriter(Writer writer, String contentTypeList, String characterEncoding) {
+		ResponseWriter responseWriter = wrappedRenderKit.createResponseWriter(writer, contentTypeList, characterEncoding);
+		if (null == responseWriter || responseWriter instanceof AngularResponseWriter) {
+			return responseWriter;
+		}
+		return new AngularResponseWriter(responseWriter);
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import java.util.Iterator;
+
+import javax.faces.context.FacesContext;
+import javax.faces.render.RenderKit;
+import javax.faces.render.RenderKitFactory;
+
+/** Helper class providing the AngularRenderKit. */
+public class AngularRenderKitFactory extends RenderKitFactory {
+	private RenderKitFactory wrappedRenderKitFactory;
+
+	public AngularRenderKitFactory(RenderKitFactory renderKitFactory) {
+		this.wrappedRenderKitFactory = renderKitFactory;
+	}
+
+	@Override
+	public RenderKitFactory getWrapped() {
+		return wrappedRenderKitFactory;
+	}
+
+	@Override
+	public void addRenderKit(String renderKitId, RenderKit renderKit) {
+		wrappedRenderKitFactory.addRenderKit(renderKitId, renderKit);
+	}
+
+	@Override
+	public RenderKit getRenderKit(FacesContext context, String renderKitId) {
+		RenderKit renderKit = wrappedRenderKitFactory.getRenderKit(context, renderKitId);
+		if (null == renderKit || null == context
+				|| !(AngularResponseWriter.isEnabled(context) || AddedAttributes.isTransient(context) || EarlyFlush.isEnabled(context))) {
+			return renderKit;
+		}
+		return new AngularRenderKit(renderKit);
+	}
+
+	@Override
+	public Iterator<String> getRenderKitIds() {
+		return wrappedRenderKitFactory.getRenderKitIds();
+	}
+}
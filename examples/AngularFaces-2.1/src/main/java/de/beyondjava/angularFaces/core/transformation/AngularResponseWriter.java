@@ -0,0 +1,319 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIInput;
+import javax.faces.context.FacesContext;
+import javax.faces.context.ResponseWriter;
+import javax.faces.context.ResponseWriterWrapper;
+
+import de.beyondjava.angularFaces.core.BeanProperty;
+import de.beyondjava.angularFaces.core.ContextParameters;
+import de.beyondjava.angularFaces.core.ELTools;
+import de.beyondjava.angularFaces.core.NGBeanAttributeInfo;
+import de.beyondjava.angularFaces.core.tagTransformer.AngularTagDecorator;
+
+/**
+ * Adds the JSR 303 information and the AngularJS controller attributes to the HTML code while the components are rendered. Unlike
+ * the AddTypeInformationCallback, it doesn't modify the components, so the view state isn't affected. It also writes the transient
+ * attributes of the {@link AddedAttributes}, and flushes the head of the page if {@link EarlyFlush} is active.
+ */
+public class AngularResponseWriter extends ResponseWriterWrapper {
+	/**
+	 * Context parameter: if true, the attributes derived from the JSR 303 annotations and the AngularJS controller attributes are
+	 * written by the AngularResponseWriter instead of being added to the components.
+	 */
+	public static final String RENDER_TIME_INJECTION = "de.beyondjava.angularFaces.RENDER_TIME_INJECTION";
+
+	/**
+	 * Are the attributes added while rendering?
+	 * 
+	 * @param context
+	 *            the current FacesContext
+	 * @return the value of the context parameter RENDER_TIME_INJECTION
+	 */
+	public static boolean isEnabled(FacesContext context) {
+		return ContextParameters.isTrue(context, RENDER_TIME_INJECTION);
+	}
+
+	private final ResponseWriter wrapped;
+
+	/** The attributes to be added to the current element, or null. */
+	private Map<String, Object> pendingAttributes = null;
+
+	/** The component whose element has been extended most recently, until the element is closed. */
+	private UIComponent extendedComponent = null;
+
+	private int depth = 0;
+
+	private int extendedElementDepth = -1;
+
+	/** Are the type information and the controller attributes added while rendering? */
+	private final boolean renderTimeInjection;
+
+	/** Are there transient attributes to be written? */
+	private final boolean transientAttributes;
+
+	public AngularResponseWriter(ResponseWriter wrapped) {
+		this.wrapped = wrapped;
+		FacesContext context = FacesContext.getCurrentInstance();
+		this.renderTimeInjection = null != context && isEnabled(context);
+		this.transientAttributes = null != context && AddedAttributes.isTransient(context);
+	}
+
+	@Override
+	public ResponseWriter getWrapped() {
+		return wrapped;
+	}
+
+	@Override
+	public ResponseWriter cloneWithWriter(Writer writer) {
+		return new AngularResponseWriter(wrapped.cloneWithWriter(writer));
+	}
+
+	@Override
+	public void startElement(String name, UIComponent component) throws IOException {
+		writePendingAttributes();
+		wrapped.startElement(name, component);
+		depth++;
+		if (!renderTimeInjection && !transientAttributes) {
+			return;
+		}
+		if (null == component) {
+			component = UIComponent.getCurrentComponent(FacesContext.getCurrentInstance());
+		}
+		if (null != component && component != extendedComponent) {
+			Map<String, Object> attributes = collectAttributes(name, component);
+			if (null != attributes) {
+				pendingAttributes = attributes;
+				extendedComponent = component;
+				extendedElementDepth = depth;
+			}
+		}
+	}
+
+	/**
+	 * Finds the attributes to be added to an element. These are the transient attributes added by the transformation, plus the
+	 * attributes computed by mirroring the AddTypeInformationCallback and the FindNGControllerCallback. Most elements don't get
+	 * additional attributes, so the map is only created when an attribute is found.
+	 * 
+	 * @return null if there's nothing to add
+	 */
+	private Map<String, Object> collectAttributes(String elementName, UIComponent component) {
+		Map<String, Object> attributes = null;
+		boolean isInputElement = "input".equals(elementName) || "textarea".equals(elementName) || "select".equals(elementName);
+		if (transientAttributes && (isInputElement || !(component instanceof UIInput))) {
+			Map<String, Object> added = AddedAttributes.getTransientAttributes(component);
+			if (null != added && !added.isEmpty()) {
+				attributes = new LinkedHashMap<String, Object>(added);
+			}
+		}
+		if (!renderTimeInjection || !component.getAttributes().containsKey(AngularTagDecorator.ANGULAR_MARKER)) {
+			return attributes;
+		}
+		Map<String, Object> passThroughAttributes = component.getPassThroughAttributes(false);
+		for (String controllerAttribute : CONTROLLER_ATTRIBUTES) {
+			Object value = component.getAttributes().get(controllerAttribute);
+			if (null != value && (null == passThroughAttributes || !passThroughAttributes.containsKey(controllerAttribute))) {
+				attributes = put(attributes, controllerAttribute, value);
+			}
+		}
+		if (component instanceof UIInput && isInputElement) {
+			// the bean is evaluated while rendering, so it's correct even in a data table
+			BeanProperty property = ELTools.getBeanProperty(component);
+			if (null != property) {
+				NGBeanAttributeInfo infos = ELTools.getBeanAttributeInfos(property);
+				attributes = collectTypeInformation((UIInput) component, infos, attributes,
+						!TransformationBudget.isDegraded(FacesContext.getCurrentInstance()));
+			}
+		}
+		return attributes;
+	}
+
+	/** Attributes of the AngularJS application and controller, written if the component doesn't render them itself. */
+	private static final String[] CONTROLLER_ATTRIBUTES = { "ng-app", "ng-controller" };
+
+	private static Map<String, Object> put(Map<String, Object> attributes, String name, Object value) {
+		if (null == attributes) {
+			attributes = new LinkedHashMap<String, Object>();
+		}
+		attributes.put(name, value);
+		return attributes;
+	}
+
+	/**
+	 * @param attributes
+	 *            the attributes collected so far, or null
+	 * @param addHints
+	 *            false if the transformation budget has been exceeded. The required attribute is added nonetheless, the other type
+	 *            hints are skipped.
+	 * @return the attributes, or null if there are none
+	 */
+	private Map<String, Object> collectTypeInformation(UIInput component, NGBeanAttributeInfo infos, Map<String, Object> attributes,
+			boolean addHints) {
+		if (infos.isRequired() && !component.isRequired()) {
+			attributes = put(attributes, "required", "");
+		}
+		if (!addHints) {
+			return attributes;
+		}
+		if (infos.getMax() > 0 && null == AttributeUtilities.getAttribute(component, "max")) {
+			attributes = put(attributes, "max", infos.getMax());
+		}
+		if (infos.getMin() > 0 && null == AttributeUtilities.getAttribute(component, "min")) {
+			attributes = put(attributes, "min", infos.getMin());
+		}
+		if (infos.getMaxSize() > 0) {
+			attributes = put(attributes, "ng-maxlength", infos.getMaxSize());
+			final Object ml = AttributeUtilities.getAttribute(component, "maxlength");
+			int maxlength = ml instanceof Number ? ((Number) ml).intValue() : -1;
+			if (maxlength < 0) {
+				attributes.put("maxlength", infos.getMaxSize());
+			} else
+				attributes.put("ng-maxlength", maxlength);
+		}
+		if (infos.getMinSize() > 0) {
+			attributes = put(attributes, "ng-minlength", infos.getMinSize());
+		}
+		if (infos.isNumeric()) {
+			attributes = put(attributes, "type", "number");
+		} else if (infos.isDate()) {
+			attributes = put(attributes, "type", "date");
+		} else if (infos.isBoolean()) {
+			attributes = put(attributes, "type", "checkbox");
+		}
+		return attributes;
+	}
+
+	@Override
+	public void writeAttribute(String name, Object value, String property) throws IOException {
+		if (null != pendingAttributes && pendingAttributes.containsKey(name)) {
+			if ("type".equals(name) && "hidden".equals(value)) {
+				// that's not the input field the user sees
+				pendingAttributes = null;
+				extendedComponent = null;
+			} else if ("type".equals(name) && "text".equals(value)) {
+				// a more specific input type replaces the default type
+				value = pendingAttributes.remove(name);
+			} else {
+				// attributes set by the renderer take precedence
+				pendingAttributes.remove(name);
+			}
+		}
+		wrapped.writeAttribute(name, value, property);
+	}
+
+	@Override
+	public void writeURIAttribute(String name, Object value, String property) throws IOException {
+		if (null != pendingAttributes) {
+			pendingAttributes.remove(name);
+		}
+		wrapped.writeURIAttribute(name, value, property);
+	}
+
+	/** Writes the pending attributes before the start tag is closed. */
+	private void writePendingAttributes() throws IOException {
+		if (null != pendingAttributes) {
+			Map<String, Object> attributes = pendingAttributes;
+			pendingAttributes = null;
+			for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+				wrapped.writeAttribute(attribute.getKey(), attribute.getValue(), null);
+			}
+		}
+	}
+
+	@Override
+	public void endElement(String name) throws IOException {
+		writePendingAttributes();
+		wrapped.endElement(name);
+		if ("head".equals(name) && EarlyFlush.isApplicable(FacesContext.getCurrentInstance())) {
+			EarlyFlush.flush(FacesContext.getCurrentInstance(), wrapped);
+		}
+		if (depth == extendedElementDepth) {
+			// the next element of the component belongs to another row of a data table
+			extendedComponent = null;
+			extendedElementDepth = -1;
+		}
+		depth--;
+	}
+
+	@Override
+	public void writeText(Object text, String property) throws IOException {
+		writePendingAttributes();
+		wrapped.writeText(text, property);
+	}
+
+	@Override
+	public void writeText(Object text, UIComponent component, String property) throws IOException {
+		writePendingAttributes();
+		wrapped.writeText(text, component, property);
+	}
+
+	@Override
+	public void writeText(char[] text, int off, int len) throws IOException {
+		writePendingAttributes();
+		wrapped.writeText(text, off, len);
+	}
+
+	@Override
+	public void writeComment(Object comment) throws IOException {
+		writePendingAttributes();
+		wrapped.writeComment(comment);
+	}
+
+	@Override
+	public void startCDATA() throws IOException {
+		writePendingAttributes();
+		wrapped.startCDATA();
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		writePendingAttributes();
+		wrapped.write(cbuf, off, len);
+	}
+
+	@Override
+	public void write(String str) throws IOException {
+		writePendingAttributes();
+		wrapped.write(str);
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		writePendingAttributes();
+		wrapped.write(c);
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		writePendingAttributes();
+		wrapped.write(str, off, len);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		writePendingAttributes();
+		wrapped.flush();
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.component.UIComponent;
+import javax.faces.component.visit.VisitCallback;
+import javax.faces.component.visit.VisitContext;
+import javax.faces.component.visit.VisitResult;
+
+/**
+ * Runs several callbacks during a single visit of the component tree. The callbacks are called in the order they've been added. A
+ * callback returning REJECT isn't called for the rest of the subtree, a callback returning COMPLETE isn't called anymore. The other
+ * callbacks aren't affected by this.
+ */
+public class CompositeVisitCallback implements VisitCallback {
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.transformation.CompositeVisitCallback");
+
+	private final List<String> descriptions = new ArrayList<String>();
+
+	private final List<VisitCallback> callbacks = new ArrayList<VisitCallback>();
+
+	private boolean[] complete;
+
+	/** The root of the subtree a callback has opted out of, or null. */
+	private UIComponent[] rejectedSubtrees;
+
+	private long[] nanos;
+
+	private boolean timing;
+
+	/**
+	 * Adds a callback.
+	 * 
+	 * @param description
+	 *            used to report the time spent in the callback
+	 * @param callback
+	 *            the callback
+	 * @return this
+	 */
+	public CompositeVisitCallback add(String description, VisitCallback callback) {
+		descriptions.add(description);
+		callbacks.add(callback);
+		complete = new boolean[callbacks.size()];
+		rejectedSubtrees = new UIComponent[callbacks.size()];
+		nanos = new long[callbacks.size()];
+		timing = LOGGER.isLoggable(Level.FINE);
+		return this;
+	}
+
+	@Override
+	public VisitResult visit(VisitContext context, UIComponent component) {
+		boolean visitChildren = false;
+		boolean allComplete = true;
+		for (int i = 0; i < complete.length; i++) {
+			if (complete[i]) {
+				continue;
+			}
+			if (null != rejectedSubtrees[i]) {
+				if (isDescendant(component, rejectedSubtrees[i])) {
+					allComplete = false;
+					continue;
+				}
+				rejectedSubtrees[i] = null;
+			}
+			long timer = timing ? System.nanoTime() : 0;
+			VisitResult result = callbacks.get(i).visit(context, component);
+			if (timing) {
+				nanos[i] += System.nanoTime() - timer;
+			}
+			if (result == VisitResult.COMPLETE) {
+				complete[i] = true;
+			} else if (result == VisitResult.REJECT) {
+				rejectedSubtrees[i] = component;
+				allComplete = false;
+			} else {
+				visitChildren = true;
+				allComplete = false;
+			}
+		}
+		if (visitChildren) {
+			return VisitResult.ACCEPT;
+		}
+		if (allComplete) {
+			return VisitResult.COMPLETE;
+		}
+		// nobody's interested in the children of this component
+		return VisitResult.REJECT;
+	}
+
+	private boolean isDescendant(UIComponent component, UIComponent ancestor) {
+		for (UIComponent c = component.getParent(); null != c; c = c.getParent()) {
+			if (c == ancestor) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Reports the time spent in each callback. */
+	public void logTimes() {
+		if (timing) {
+			for (int i = 0; i < nanos.length; i++) {
+				LOGGER.fine((nanos[i] / 1000) / 1000.0d + " ms " + descriptions.get(i));
+			}
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.application.ProjectStage;
+import javax.faces.context.FacesContext;
+import javax.faces.context.ResponseWriter;
+
+import de.beyondjava.angularFaces.core.ContextParameters;
+
+/**
+ * Sends the head of the page to the browser before the body is rendered, so the browser loads the scripts while the server is
+ * still busy rendering. Whether the flush reaches the browser depends on the buffering of the JSF implementation and the servlet
+ * container.
+ */
+public class EarlyFlush {
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.transformation.EarlyFlush");
+
+	/**
+	 * Context parameter: if true, the head of a full page is flushed before the body is rendered. It's ignored in development mode,
+	 * because the error page of the JSF implementation can't be shown after the response has been committed.
+	 */
+	public static final String EARLY_FLUSH = "de.beyondjava.angularFaces.EARLY_FLUSH";
+
+	/** Request parameter preventing the early flush. It's set when the page is reloaded after an error. */
+	static final String NO_EARLY_FLUSH = "afNoEarlyFlush";
+
+	/** Request attribute set after the head has been flushed. */
+	private static final String FLUSHED = "de.beyondjava.angularFaces.earlyFlushed";
+
+	/**
+	 * Is the early flush activated?
+	 * 
+	 * @param context
+	 *            the current FacesContext
+	 * @return the value of the context parameter EARLY_FLUSH
+	 */
+	public static boolean isEnabled(FacesContext context) {
+		return ContextParameters.isTrue(context, EARLY_FLUSH);
+	}
+
+	/**
+	 * The head is only flushed by GET requests rendering a full page. Postbacks may still end up with a redirect, and AJAX responses
+	 * don't have a head.
+	 */
+	static boolean isApplicable(FacesContext context) {
+		return isEnabled(context) && !context.isProjectStage(ProjectStage.Development) && !context.isPostback()
+				&& !context.getPartialViewContext().isAjaxRequest() && !isFlushed(context)
+				&& !context.getExternalContext().getRequestParameterMap().containsKey(NO_EARLY_FLUSH);
+	}
+
+	/** Flushes the head to the browser. The response is committed afterwards. */
+	static void flush(FacesContext context, ResponseWriter writer) {
+		try {
+			writer.flush();
+			context.getExternalContext().responseFlushBuffer();
+			context.getAttributes().put(FLUSHED, Boolean.TRUE);
+		} catch (IOException e) {
+			LOGGER.log(Level.FINE, "Couldn't flush the head of the page", e);
+		}
+	}
+
+	/** @return true if the response has been committed by an early flush */
+	static boolean isFlushed(FacesContext context) {
+		return context.getAttributes().containsKey(FLUSHED);
+	}
+}
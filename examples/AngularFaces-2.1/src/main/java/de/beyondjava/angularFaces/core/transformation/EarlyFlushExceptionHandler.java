@@ -0,0 +1,82 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.FacesException;
+import javax.faces.context.ExceptionHandler;
+import javax.faces.context.ExceptionHandlerWrapper;
+import javax.faces.context.FacesContext;
+import javax.faces.event.ExceptionQueuedEvent;
+
+/**
+ * If an error occurs after the head of the page has been flushed early, the error page can't be shown any longer. In this case, the
+ * browser is told to reload the page without early flush, so the error page is shown by the second request.
+ */
+public class EarlyFlushExceptionHandler extends ExceptionHandlerWrapper {
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.transformation.EarlyFlushExceptionHandler");
+
+	private ExceptionHandler wrappedExceptionHandler;
+
+	public EarlyFlushExceptionHandler(ExceptionHandler exceptionHandler) {
+		this.wrappedExceptionHandler = exceptionHandler;
+	}
+
+	@Override
+	public ExceptionHandler getWrapped() {
+		return wrappedExceptionHandler;
+	}
+
+	@Override
+	public void handle() throws FacesException {
+		FacesContext context = FacesContext.getCurrentInstance();
+		if (null != context && EarlyFlush.isFlushed(context)) {
+			Iterator<ExceptionQueuedEvent> events = getUnhandledExceptionQueuedEvents().iterator();
+			if (events.hasNext()) {
+				while (events.hasNext()) {
+					LOGGER.log(Level.SEVERE, "Error after the head of the page has been flushed. The page is reloaded without early flush.",
+							events.next().getContext().getException());
+					events.remove();
+				}
+				reloadWithoutEarlyFlush(context);
+			}
+		}
+		wrappedExceptionHandler.handle();
+	}
+
+	private void reloadWithoutEarlyFlush(FacesContext context) {
+		try {
+			Writer writer = context.getResponseWriter();
+			if (null == writer) {
+				writer = context.getExternalContext().getResponseOutputWriter();
+			}
+			// the parameter has to precede the fragment of the URL
+			writer.write("<script type=\"text/javascript\">window.location.replace(window.location.pathname"
+					+ " + window.location.search + (window.location.search ? '&' : '?') + '" + EarlyFlush.NO_EARLY_FLUSH
+					+ "=true' + window.location.hash);</script>");
+			writer.flush();
+		} catch (IOException e) {
+			LOGGER.log(Level.FINE, "Couldn't tell the browser to reload the page", e);
+		}
+		context.responseComplete();
+	}
+}
@@ -19,6 +19,7 @@ package de.beyondjava.angularFaces.core.transformation;
 import java.util.List;
 
 import javax.faces.component.UIComponent;
+import javax.faces.context.FacesContext;
 import javax.faces.component.visit.VisitCallback;
 import javax.faces.component.visit.VisitContext;
 import javax.faces.component.visit.VisitResult;
@@ -40,6 +41,9 @@ public class FindNGControllerCallback implements VisitCallback {
 
 	private boolean addMessages=true;
 
+	/** The AngularResponseWriter writes the controller attributes if render-time injection is active. */
+	private final boolean writeControllerAttributes = !AngularResponseWriter.isEnabled(FacesContext.getCurrentInstance());
+
 	@Override
 	public VisitResult visit(VisitContext arg0, UIComponent source) {
 		if (!(source instanceof UIComponent))
@@ -56,13 +60,15 @@ public class FindNGControllerCallback implements VisitCallback {
 		}
 
 		String ngApp = (String) AttributeUtilities.getAttribute(component,"ng-app");
-		if (null != ngApp) {
-			component.getPassThroughAttributes().put("ng-app", ngApp);
+		if (null != ngApp && writeControllerAttributes) {
+			AddedAttributes.put(component, "ng-app", ngApp);
 		}
 		
 		String ngController = (String) AttributeUtilities.getAttribute(component,"ng-controller");
 		if (null != ngController) {
-			component.getPassThroughAttributes().put("ng-controller", ngController);
+			if (writeControllerAttributes) {
+				AddedAttributes.put(component, "ng-controller", ngController);
+			}
 			List<UIComponent> children = component.getChildren();
 			boolean needsToBeAdded = true;
 //			int index = 0;
@@ -0,0 +1,130 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIViewRoot;
+import javax.faces.context.FacesContext;
+import javax.faces.event.AbortProcessingException;
+import javax.faces.event.PostAddToViewEvent;
+import javax.faces.event.PreRemoveFromViewEvent;
+import javax.faces.event.SystemEvent;
+import javax.faces.event.SystemEventListener;
+
+import de.beyondjava.angularFaces.core.ContextParameters;
+
+/**
+ * Keeps track of the components added to a view that has already been transformed by the PuiAngularTransformer. The transformation
+ * is stored in the view state, so postbacks only have to transform the components added since then.
+ */
+public class IncrementalTransformation implements SystemEventListener {
+	/**
+	 * Context parameter: if true, postbacks only transform the components that have been added to the view since the previous
+	 * request.
+	 */
+	public static final String INCREMENTAL_TRANSFORMATION = "de.beyondjava.angularFaces.INCREMENTAL_TRANSFORMATION";
+
+	/** View root attribute set when the view has been transformed. It's stored in the view state. */
+	private static final String TRANSFORMED = "de.beyondjava.angularFaces.transformed";
+
+	/** Request attribute containing the components added to the view during the current request. */
+	private static final String ADDED_COMPONENTS = "de.beyondjava.angularFaces.addedComponents";
+
+	/** Request attribute set if a component synchronized with AngularJS has been removed. */
+	private static final String FULL_TRANSFORMATION_REQUIRED = "de.beyondjava.angularFaces.fullTransformationRequired";
+
+	static boolean isEnabled(FacesContext context) {
+		return ContextParameters.isTrue(context, INCREMENTAL_TRANSFORMATION);
+	}
+
+	@Override
+	public void processEvent(SystemEvent event) throws AbortProcessingException {
+		FacesContext context = FacesContext.getCurrentInstance();
+		if (!isEnabled(context) || !context.isPostback()) {
+			return;
+		}
+		UIViewRoot root = context.getViewRoot();
+		if (null == root || !root.getAttributes().containsKey(TRANSFORMED)) {
+			// the view is either being restored or it hasn't been transformed yet
+			return;
+		}
+		UIComponent component = (UIComponent) event.getSource();
+		Map<Object, Object> attributes = context.getAttributes();
+		if (event instanceof PreRemoveFromViewEvent) {
+			if (null != component.getAttributes().get("angularfacesattributes")) {
+				// the attributes of the component mustn't be synchronized any longer
+				attributes.put(FULL_TRANSFORMATION_REQUIRED, Boolean.TRUE);
+			}
+		} else {
+			@SuppressWarnings("unchecked")
+			List<UIComponent> added = (List<UIComponent>) attributes.get(ADDED_COMPONENTS);
+			if (null == added) {
+				added = new ArrayList<UIComponent>();
+				attributes.put(ADDED_COMPONENTS, added);
+			}
+			added.add(component);
+		}
+	}
+
+	@Override
+	public boolean isListenerForSource(Object source) {
+		return source instanceof UIComponent;
+	}
+
+	/**
+	 * Can the view be transformed incrementally? That's the case if a previous request has transformed the view, and the attributes
+	 * added by the transformation have been restored from the view state.
+	 * 
+	 * @return false if the view has to be transformed completely
+	 */
+	static boolean canTransformIncrementally(FacesContext context, UIViewRoot root) {
+		if (!isEnabled(context) || !context.isPostback() || context.getAttributes().containsKey(FULL_TRANSFORMATION_REQUIRED)
+				|| AddedAttributes.isTransient(context)) {
+			// transient attributes haven't been restored from the view state
+			return false;
+		}
+		return Boolean.TRUE.equals(root.getAttributes().get(TRANSFORMED));
+	}
+
+	/**
+	 * Returns the components added to the view since the view has been restored. Each component is returned only once.
+	 * 
+	 * @return a list that may be empty, but never null
+	 */
+	static List<UIComponent> takeAddedComponents(FacesContext context) {
+		@SuppressWarnings("unchecked")
+		List<UIComponent> added = (List<UIComponent>) context.getAttributes().remove(ADDED_COMPONENTS);
+		if (null == added) {
+			return new ArrayList<UIComponent>();
+		}
+		return added;
+	}
+
+	/**
+	 * Records in the view that it has been transformed, so the next postback can start from there.
+	 */
+	static void markTransformed(FacesContext context, UIViewRoot root) {
+		if (isEnabled(context) && !Boolean.TRUE.equals(root.getAttributes().get(TRANSFORMED))) {
+			root.getAttributes().put(TRANSFORMED, Boolean.TRUE);
+			AddedAttributes.addedToViewState(context, TRANSFORMED, Boolean.TRUE);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import javax.faces.component.TransientStateHelper;
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIViewRoot;
+import javax.faces.context.FacesContext;
+import javax.faces.event.AbortProcessingException;
+import javax.faces.event.PreRemoveFromViewEvent;
+import javax.faces.event.SystemEvent;
+import javax.faces.event.SystemEventListener;
+
+import de.beyondjava.angularFaces.core.tagTransformer.AngularTagDecorator;
+
+/**
+ * Records the components marked by the AngularTagDecorator while the view is built, so the PrunedVisitContext doesn't have to
+ * search the component tree for them. The record is only kept for views built by the current request. Views restored by a postback
+ * are searched by the PrunedVisitContext, because the JSF implementation may not report every component it restores.
+ */
+public class MarkedComponents implements SystemEventListener {
+	/** Transient attribute of the view root containing the marked components. */
+	private static final String MARKED_COMPONENTS = "de.beyondjava.angularFaces.markedComponents";
+
+	private static final String[] MARKERS = { AngularTagDecorator.ANGULAR_MARKER, AngularTagDecorator.TRANSLATION_MARKER };
+
+	@Override
+	public void processEvent(SystemEvent event) throws AbortProcessingException {
+		FacesContext context = FacesContext.getCurrentInstance();
+		if (!PuiAngularTransformer.isPrunedTreeVisits(context) || context.isPostback()) {
+			return;
+		}
+		UIViewRoot root = context.getViewRoot();
+		UIComponent component = (UIComponent) event.getSource();
+		if (null == root || !isMarked(component)) {
+			return;
+		}
+		TransientStateHelper helper = root.getTransientStateHelper();
+		@SuppressWarnings("unchecked")
+		Set<UIComponent> marked = (Set<UIComponent>) helper.getTransient(MARKED_COMPONENTS);
+		if (event instanceof PreRemoveFromViewEvent) {
+			if (null != marked) {
+				marked.remove(component);
+			}
+		} else {
+			if (null == marked) {
+				marked = Collections.newSetFromMap(new IdentityHashMap<UIComponent, Boolean>());
+				helper.putTransient(MARKED_COMPONENTS, marked);
+			}
+			marked.add(component);
+		}
+	}
+
+	private boolean isMarked(UIComponent component) {
+		for (String marker : MARKERS) {
+			if (component.getAttributes().containsKey(marker)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean isListenerForSource(Object source) {
+		return source instanceof UIComponent;
+	}
+
+	/**
+	 * @return the components marked by the AngularTagDecorator, or null if they haven't been recorded while building the view
+	 */
+	@SuppressWarnings("unchecked")
+	static Set<UIComponent> get(UIViewRoot root) {
+		TransientStateHelper helper = root.getTransientStateHelper(false);
+		return null == helper ? null : (Set<UIComponent>) helper.getTransient(MARKED_COMPONENTS);
+	}
+}
@@ -0,0 +1,226 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import javax.faces.component.NamingContainer;
+import javax.faces.component.UIComponent;
+import javax.faces.component.visit.VisitCallback;
+import javax.faces.component.visit.VisitContext;
+import javax.faces.component.visit.VisitHint;
+import javax.faces.component.visit.VisitResult;
+import javax.faces.context.FacesContext;
+
+import de.beyondjava.angularFaces.core.tagTransformer.AngularTagDecorator;
+
+/**
+ * Visits only the components marked by the AngularTagDecorator, either with {@link AngularTagDecorator#ANGULAR_MARKER} or with
+ * {@link AngularTagDecorator#TRANSLATION_MARKER}. Subtrees without marked components are skipped, and the callback
+ * isn't called for the unmarked ancestors of a marked component.
+ */
+public class PrunedVisitContext extends VisitContext {
+
+    /**
+     * Creates a PrunedVisitContext instance.
+     * @param facesContext the FacesContext for the current request
+     * @param root the root of the component tree to be visited
+     * @throws NullPointerException  if {@code facesContext}
+     *                               is {@code null}
+     */
+    public PrunedVisitContext(FacesContext facesContext, UIComponent root) {
+        this(facesContext, root, AngularTagDecorator.ANGULAR_MARKER);
+    }
+
+    /**
+     * Creates a PrunedVisitContext instance.
+     * @param facesContext the FacesContext for the current request
+     * @param root the root of the component tree to be visited
+     * @param markers the names of the attributes marking the components to be visited
+     * @throws NullPointerException  if {@code facesContext}
+     *                               is {@code null}
+     */
+    public PrunedVisitContext(FacesContext facesContext, UIComponent root, String... markers) {
+        this(facesContext, root, null, markers);
+    }
+
+    /**
+     * Creates a PrunedVisitContext instance without searching the component tree.
+     * @param facesContext the FacesContext for the current request
+     * @param root the root of the component tree to be visited
+     * @param candidates the components marked by the AngularTagDecorator, as recorded by {@link MarkedComponents}.
+     *                   If null, the component tree is searched for the marked components.
+     * @param markers the names of the attributes marking the components to be visited
+     * @throws NullPointerException  if {@code facesContext}
+     *                               is {@code null}
+     */
+    public PrunedVisitContext(FacesContext facesContext, UIComponent root, Collection<UIComponent> candidates, String... markers) {
+        if (facesContext == null) {
+            throw new NullPointerException();
+        }
+
+        this.facesContext = facesContext;
+        this.hints = Collections.unmodifiableSet(EnumSet.noneOf(VisitHint.class));
+        this.markers = markers;
+        if (null == candidates) {
+            collectMarkedComponents(root);
+        } else {
+            collectMarkedComponents(root, candidates);
+        }
+    }
+
+    /**
+     * Adds the candidates carrying one of the markers and their ancestors. Only the ancestors of the marked components are
+     * visited, so this is much cheaper than searching the entire tree.
+     */
+    private void collectMarkedComponents(UIComponent root, Collection<UIComponent> candidates) {
+        for (UIComponent candidate : candidates) {
+            if (isMarked(candidate) && isPartOf(candidate, root)) {
+                markedComponents.add(candidate);
+                // stop at the first ancestor that's already known, because its ancestors have been added, too
+                UIComponent c = candidate;
+                while (null != c && relevantComponents.add(c)) {
+                    c = c.getParent();
+                }
+            }
+        }
+    }
+
+    private boolean isPartOf(UIComponent component, UIComponent root) {
+        UIComponent c = component;
+        while (null != c && c != root) {
+            c = c.getParent();
+        }
+        return c == root;
+    }
+
+    private boolean isMarked(UIComponent component) {
+        Map<String, Object> attributes = component.getAttributes();
+        for (String marker : markers) {
+            if (attributes.containsKey(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the marked components and their ancestors.
+     * @return true if the component or one of its descendants is marked
+     */
+    private boolean collectMarkedComponents(UIComponent component) {
+        boolean relevant = false;
+        if (isMarked(component)) {
+            markedComponents.add(component);
+            relevant = true;
+        }
+        if (component.getFacetCount() > 0 || component.getChildCount() > 0) {
+            Iterator<UIComponent> kids = component.getFacetsAndChildren();
+            while (kids.hasNext()) {
+                if (collectMarkedComponents(kids.next())) {
+                    relevant = true;
+                }
+            }
+        }
+        if (relevant) {
+            relevantComponents.add(component);
+        }
+        return relevant;
+    }
+
+    /**
+     * @return the number of components marked by the AngularTagDecorator
+     */
+    public int getNumberOfMarkedComponents() {
+        return markedComponents.size();
+    }
+
+    /**
+     * @see VisitContext#getFacesContext VisitContext.getFacesContext()
+     */
+    @Override
+    public FacesContext getFacesContext() {
+        return facesContext;
+    }
+
+    /**
+     * @see VisitContext#getIdsToVisit VisitContext.getIdsToVisit()
+     */
+    @Override
+    public Collection<String> getIdsToVisit() {
+        return ALL_IDS;
+    }
+
+    /**
+     * @see VisitContext#getSubtreeIdsToVisit VisitContext.getSubtreeIdsToVisit()
+     */
+    @Override
+    public Collection<String> getSubtreeIdsToVisit(UIComponent component) {
+
+        // Make sure component is a NamingContainer
+        if (!(component instanceof NamingContainer)) {
+            throw new IllegalArgumentException("Component is not a NamingContainer: " + component);
+        }
+
+        return ALL_IDS;
+    }
+
+    /**
+     * @see VisitContext#getHints VisitContext.getHints
+     */
+    @Override
+    public Set<VisitHint> getHints() {
+        return hints;
+    }
+
+    /**
+     * @see VisitContext#invokeVisitCallback VisitContext.invokeVisitCallback()
+     */
+    @Override
+    public VisitResult invokeVisitCallback(UIComponent component,
+                                           VisitCallback callback) {
+        if (!relevantComponents.contains(component)) {
+            // neither the component nor its descendants are interesting
+            return VisitResult.REJECT;
+        }
+        if (markedComponents.contains(component)) {
+            return callback.visit(this, component);
+        }
+        return VisitResult.ACCEPT;
+    }
+
+    // The FacesContext for this request
+    private FacesContext facesContext;
+
+    // Our visit hints
+    private Set<VisitHint> hints;
+
+    // The attributes marking the components to be visited
+    private final String[] markers;
+
+    // The components marked by the AngularTagDecorator
+    private final Set<UIComponent> markedComponents = Collections.newSetFromMap(new IdentityHashMap<UIComponent, Boolean>());
+
+    // The marked components and their ancestors
+    private final Set<UIComponent> relevantComponents = Collections.newSetFromMap(new IdentityHashMap<UIComponent, Boolean>());
+}
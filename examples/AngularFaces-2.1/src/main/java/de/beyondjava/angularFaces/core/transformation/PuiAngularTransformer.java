@@ -17,14 +17,21 @@
 package de.beyondjava.angularFaces.core.transformation;
 
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.faces.application.FacesMessage;
 import javax.faces.application.ProjectStage;
+import javax.faces.application.Resource;
 import javax.faces.component.UIComponent;
 import javax.faces.component.UIOutput;
 import javax.faces.component.UIViewRoot;
+import javax.faces.component.visit.VisitContext;
 import javax.faces.context.FacesContext;
 import javax.faces.context.PartialViewContext;
 import javax.faces.event.AbortProcessingException;
@@ -33,7 +40,11 @@ import javax.faces.event.SystemEventListener;
 
 import de.beyondjava.angularFaces.components.puiModelSync.PuiModelSync;
 import de.beyondjava.angularFaces.components.puiModelSync.PuiScriptRenderer;
+import de.beyondjava.angularFaces.core.ContextParameters;
+import de.beyondjava.angularFaces.core.resources.ScriptBundle;
+import de.beyondjava.angularFaces.core.tagTransformer.AngularModelManifest;
 import de.beyondjava.angularFaces.core.tagTransformer.AngularTagDecorator;
+import de.beyondjava.angularFaces.core.tagTransformer.ClientFeature;
 
 /**
  * Converts EL expressions to Angular expressions
@@ -68,31 +79,29 @@ public class PuiAngularTransformer implements SystemEventListener {
 				final UIViewRoot root = (UIViewRoot) source;
 				boolean ajaxRequest = context.getPartialViewContext().isAjaxRequest();
 				boolean angularFacesRequest = ajaxRequest && isAngularFacesRequest();
-				if (!angularFacesRequest || PuiModelSync.isJSFAttributesTableEmpty()) {
-					PuiModelSync.initJSFAttributesTable();
-					FindNGControllerCallback ngControllerCallback = new FindNGControllerCallback();
-					LOGGER.fine(((System.nanoTime() - timer) / 1000) / 1000.0d + " ms find NGControllerCallback");
-					root.visitTree(new FullVisitContext(context), ngControllerCallback);
+				// transient attributes aren't restored from the view state, so AngularFaces requests have to add them again
+				if (!angularFacesRequest || PuiModelSync.isJSFAttributesTableEmpty() || AddedAttributes.isTransient(context)) {
+					TransformationBudget.start(context, timer);
+					// the attributes registered by the previous request are kept if only parts of the view are transformed
+					boolean partialTransformation = ajaxRequest && !angularFacesRequest && isPartialAjaxTransformation(context)
+							&& !PuiModelSync.isJSFAttributesTableEmpty();
 					if (!angularFacesRequest) {
 						addJavascript(root, context, isProduction);
 					}
-					time("add NGModel", new Runnable() {
-						public void run() {
-							root.visitTree(new FullVisitContext(context), new AddNGModelAndIDCallback());
-						}
-					});
-					time("add type information", new Runnable() {
-						public void run() {
-							root.visitTree(new FullVisitContext(context), new AddTypeInformationCallback());
-						}
-					});
-					if (!ajaxRequest) {
-						time("internationalization", new Runnable() {
-							public void run() {
-								root.visitTree(new FullVisitContext(context), new TranslationCallback());
-							}
-						});
+					// literal captions may have been translated when the facelets were compiled
+					boolean translate = !ajaxRequest
+							&& (!isProduction || !AngularTagDecorator.isCompiledTranslations(context) || AngularModelManifest
+									.hasRuntimeTranslations(root.getViewId()))
+							&& TransformationBudget.mayContinue(context, "the translation");
+					if (!translate && IncrementalTransformation.canTransformIncrementally(context, root)) {
+						PuiModelSync.initJSFAttributesTable();
+						transformIncrementally(context, root);
+					} else if (!(partialTransformation && transformRenderedSubtrees(context, root))) {
+						PuiModelSync.initJSFAttributesTable();
+						transformCompletely(context, root, translate);
 					}
+					AddedAttributes.logViewStateContribution(context, root);
+					TransformationBudget.finish(context, System.nanoTime() - timer);
 				}
 			}
 			long time = System.nanoTime() - timer;
@@ -100,7 +109,169 @@ public class PuiAngularTransformer implements SystemEventListener {
 		}
 	}
 
+	/** Transforms every component of the view. */
+	private void transformCompletely(FacesContext context, UIViewRoot root, boolean translate) {
+		// the AngularJS controller has to be found first, so its callback is the first one to be called
+		CompositeVisitCallback transformations = new CompositeVisitCallback().add("find NGController", new FindNGControllerCallback())
+				.add("add NGModel", new AddNGModelAndIDCallback());
+		AddTypeInformationCallback typeInformationCallback = addTypeInformation(context, transformations);
+		String[] markers = { AngularTagDecorator.ANGULAR_MARKER };
+		if (translate) {
+			transformations.add("internationalization", new TranslationCallback());
+			markers = new String[] { AngularTagDecorator.ANGULAR_MARKER, AngularTagDecorator.TRANSLATION_MARKER };
+		}
+		long visitTimer = System.nanoTime();
+		root.visitTree(createVisitContext(context, root, markers), transformations);
+		LOGGER.fine(((System.nanoTime() - visitTimer) / 1000) / 1000.0d + " ms visiting the component tree");
+		if (LOGGER.isLoggable(Level.FINE)) {
+			// compare the size of the tree with and without LIGHTWEIGHT_HTML
+			LOGGER.fine("The view " + root.getViewId() + " consists of " + countComponents(root) + " components");
+		}
+		transformations.logTimes();
+		applyTypeInformation(context, typeInformationCallback);
+		// every component has been transformed, including the components added during this request
+		IncrementalTransformation.takeAddedComponents(context);
+		IncrementalTransformation.markTransformed(context, root);
+	}
+
+	private int countComponents(UIComponent component) {
+		int count = 1;
+		Iterator<UIComponent> kids = component.getFacetsAndChildren();
+		while (kids.hasNext()) {
+			count += countComponents(kids.next());
+		}
+		return count;
+	}
+
+	/**
+	 * Transforms only the components added to the view since the previous request. The other components have been transformed
+	 * before, and their pass-through attributes have been restored from the view state. The attributes synchronized with the client
+	 * are registered with PuiModelSync along with their components, so the marked components are visited nonetheless.
+	 */
+	private void transformIncrementally(FacesContext context, UIViewRoot root) {
+		List<UIComponent> added = IncrementalTransformation.takeAddedComponents(context);
+		root.visitTree(createVisitContext(context, root, AngularTagDecorator.ANGULAR_MARKER), new AddNGModelAndIDCallback());
+		if (!added.isEmpty()) {
+			CompositeVisitCallback transformations = new CompositeVisitCallback().add("find NGController", new FindNGControllerCallback());
+			AddTypeInformationCallback typeInformationCallback = addTypeInformation(context, transformations);
+			VisitContext visitContext = new FullVisitContext(context);
+			// the components are listed in the order they've been added, so parents precede their children
+			for (UIComponent component : added) {
+				if (component.isInView()) {
+					transformations.visit(visitContext, component);
+				}
+			}
+			transformations.logTimes();
+			applyTypeInformation(context, typeInformationCallback);
+		}
+		LOGGER.fine(added.size() + " components have been transformed incrementally");
+	}
+
+	/**
+	 * Transforms only the subtrees rendered by an AJAX request, such as the form updated by a PrimeFaces command button.
+	 * 
+	 * @return false if the view has to be transformed completely
+	 */
+	private boolean transformRenderedSubtrees(FacesContext context, UIViewRoot root) {
+		PartialViewContext pvc = context.getPartialViewContext();
+		Collection<String> renderIds = pvc.getRenderIds();
+		if (pvc.isRenderAll() || null == renderIds || renderIds.isEmpty()) {
+			return false;
+		}
+		CompositeVisitCallback transformations = new CompositeVisitCallback().add("add NGModel", new AddNGModelAndIDCallback());
+		AddTypeInformationCallback typeInformationCallback = addTypeInformation(context, transformations);
+		// the rendered subtrees are small, so it doesn't pay to look for the marked components first
+		TransformRenderedSubtreesCallback renderedSubtrees = new TransformRenderedSubtreesCallback(transformations,
+				new FullVisitContext(context));
+		long visitTimer = System.nanoTime();
+		root.visitTree(VisitContext.createVisitContext(context, renderIds, null), renderedSubtrees);
+		if (renderedSubtrees.isControllerMissing()) {
+			LOGGER.fine("The AJAX request renders components outside of an AngularJS controller. The view is transformed completely.");
+			return false;
+		}
+		LOGGER.fine(((System.nanoTime() - visitTimer) / 1000) / 1000.0d + " ms visiting the rendered subtrees");
+		transformations.logTimes();
+		applyTypeInformation(context, typeInformationCallback);
+		return true;
+	}
+
+	/**
+	 * Context parameter: if true, AJAX requests that aren't AngularFaces requests only transform the components that are going to be
+	 * rendered. The attributes registered with PuiModelSync by the previous request are kept, plus the attributes found in the rendered
+	 * components.
+	 */
+	public static final String PARTIAL_AJAX_TRANSFORMATION = "de.beyondjava.angularFaces.PARTIAL_AJAX_TRANSFORMATION";
+
+	private boolean isPartialAjaxTransformation(FacesContext context) {
+		return ContextParameters.isTrue(context, PARTIAL_AJAX_TRANSFORMATION);
+	}
+
+	/**
+	 * Adds the callback collecting the input fields to the transformations, unless the AngularResponseWriter adds the type information
+	 * while rendering. The callback is added even if the transformation budget has been exceeded, because the required flag is needed
+	 * by the server-side validation.
+	 * 
+	 * @return the callback, or null if the type information is added while rendering
+	 */
+	private AddTypeInformationCallback addTypeInformation(FacesContext context, CompositeVisitCallback transformations) {
+		if (AngularResponseWriter.isEnabled(context)) {
+			return null;
+		}
+		AddTypeInformationCallback typeInformationCallback = new AddTypeInformationCallback();
+		transformations.add("add type information", typeInformationCallback);
+		return typeInformationCallback;
+	}
+
+	/**
+	 * Reads the bean metadata of the input fields found during the visit and modifies the input fields. If the transformation budget
+	 * has been exceeded, only the required flag is set.
+	 */
+	private void applyTypeInformation(FacesContext context, AddTypeInformationCallback typeInformationCallback) {
+		if (null == typeInformationCallback) {
+			return;
+		}
+		long timer = System.nanoTime();
+		typeInformationCallback.apply(TransformationBudget.mayContinue(context, "the type hints"));
+		LOGGER.fine(((System.nanoTime() - timer) / 1000) / 1000.0d + " ms applying the type information");
+	}
+
+	/**
+	 * Context parameter: if true, the component tree visits are restricted to the components marked by the AngularTagDecorator. Don't
+	 * activate it if your components are created programmatically or if your facelets have been decorated by an older version of
+	 * AngularFaces.
+	 */
+	public static final String PRUNED_TREE_VISITS = "de.beyondjava.angularFaces.PRUNED_TREE_VISITS";
+
+	static boolean isPrunedTreeVisits(FacesContext context) {
+		return ContextParameters.isTrue(context, PRUNED_TREE_VISITS);
+	}
+
+	private VisitContext createVisitContext(FacesContext context, UIViewRoot root, String... markers) {
+		if (isPrunedTreeVisits(context)) {
+			long timer = System.nanoTime();
+			PrunedVisitContext visitContext = new PrunedVisitContext(context, root, MarkedComponents.get(root), markers);
+			LOGGER.fine(((System.nanoTime() - timer) / 1000) / 1000.0d + " ms finding the " + visitContext.getNumberOfMarkedComponents()
+					+ " marked components");
+			return visitContext;
+		}
+		return new FullVisitContext(context);
+	}
+
 	private void addJavascript(UIViewRoot root, FacesContext context, boolean isProduction) {
+		Set<ClientFeature> features = AngularModelManifest.getClientFeatures(root.getViewId());
+		if (null == features) {
+			// the content of the view can't be predicted at compile time
+			features = EnumSet.allOf(ClientFeature.class);
+		}
+		if (!features.contains(ClientFeature.ANGULARJS)) {
+			LOGGER.fine("The view " + root.getViewId() + " doesn't use AngularJS, so no JavaScript files are added.");
+			return;
+		}
+		boolean directives = features.contains(ClientFeature.DIRECTIVES);
+		if (ScriptBundle.isEnabled(context)) {
+			addScriptBundle(root, context, isProduction, directives);
+			return;
+		}
 		{
 			UIOutput output = new UIOutput();
 			output.setRendererType("javax.faces.resource.Script");
@@ -146,7 +317,7 @@ public class PuiAngularTransformer implements SystemEventListener {
 			output.getAttributes().put("library", "AngularFaces");
 			root.addComponentResource(context, output, "head");
 		}
-		{
+		if (directives) {
 			UIOutput output = new UIOutput();
 			output.setRendererType("javax.faces.resource.Script");
 			if (isProduction) {
@@ -168,9 +339,10 @@ public class PuiAngularTransformer implements SystemEventListener {
 			root.addComponentResource(context, output, "head");
 		}
 
-		{
+		if (directives) {
+			// the messages are used by the client-side validation of the directives
 			Locale locale = context.getExternalContext().getRequestLocale();
-			String language = locale.getLanguage();
+			String language = ScriptBundle.getMessagesLanguage(context, locale.getLanguage());
 			UIOutput output = new UIOutput();
 			output.setRendererType("javax.faces.resource.Script");
 			output.getAttributes().put("name", "messages_" + language + ".js");
@@ -179,6 +351,22 @@ public class PuiAngularTransformer implements SystemEventListener {
 		}
 	}
 
+	/** Adds the script bundle containing every JavaScript file required by the view. */
+	private void addScriptBundle(UIViewRoot root, FacesContext context, boolean isProduction, boolean directives) {
+		String language = directives ? context.getExternalContext().getRequestLocale().getLanguage() : null;
+		ScriptBundle bundle = ScriptBundle.getBundle(context, isProduction, language);
+		UIOutput output = new UIOutput();
+		output.setRendererType("javax.faces.resource.Script");
+		output.getAttributes().put("name", bundle.getName());
+		output.getAttributes().put("library", ScriptBundle.LIBRARY);
+		root.addComponentResource(context, output, "head");
+		Resource resource = context.getApplication().getResourceHandler().createResource(bundle.getName(), ScriptBundle.LIBRARY);
+		if (null != resource && !context.getExternalContext().isResponseCommitted()) {
+			// the browser starts loading the bundle before it has parsed the head of the page
+			context.getExternalContext().addResponseHeader("Link", "<" + resource.getRequestPath() + ">; rel=preload; as=script");
+		}
+	}
+
 	@Override
 	public boolean isListenerForSource(Object source) {
 		if (source instanceof UIComponent) {
@@ -187,13 +375,6 @@ public class PuiAngularTransformer implements SystemEventListener {
 		return false;
 	}
 
-	private void time(String description, Runnable runnable) {
-		long timer = System.nanoTime();
-		runnable.run();
-		long time = System.nanoTime() - timer;
-		LOGGER.fine((time / 1000) / 1000.0d + " ms " + description);
-	}
-
 	private boolean isAngularFacesRequest() {
 		FacesContext ctx = FacesContext.getCurrentInstance();
 		PartialViewContext pvc = ctx.getPartialViewContext();
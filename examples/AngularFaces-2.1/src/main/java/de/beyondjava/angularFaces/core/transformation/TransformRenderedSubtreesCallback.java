@@ -0,0 +1,80 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.faces.component.UIComponent;
+import javax.faces.component.visit.VisitCallback;
+import javax.faces.component.visit.VisitContext;
+import javax.faces.component.visit.VisitResult;
+
+/**
+ * Called for each component to be rendered by an AJAX request. Transforms the subtree of the component, provided it's part of an
+ * AngularJS controller. If it isn't, the whole view has to be transformed, because the controller (and its PuiModelSync component)
+ * is going to be rendered.
+ */
+public class TransformRenderedSubtreesCallback implements VisitCallback {
+	private final VisitCallback transformations;
+
+	private final VisitContext subtreeVisitContext;
+
+	private boolean controllerMissing = false;
+
+	/**
+	 * @param transformations
+	 *            the transformations to be applied to each rendered subtree
+	 * @param subtreeVisitContext
+	 *            the context used to visit the rendered subtrees
+	 */
+	public TransformRenderedSubtreesCallback(VisitCallback transformations, VisitContext subtreeVisitContext) {
+		this.transformations = transformations;
+		this.subtreeVisitContext = subtreeVisitContext;
+	}
+
+	@Override
+	public VisitResult visit(VisitContext context, UIComponent target) {
+		if (!isInsideController(context, target)) {
+			controllerMissing = true;
+			return VisitResult.COMPLETE;
+		}
+		target.visitTree(subtreeVisitContext, transformations);
+		// nested render ids have already been transformed
+		return VisitResult.REJECT;
+	}
+
+	/** Looks for the AngularJS controller on the path from the view root to the component. */
+	private boolean isInsideController(VisitContext context, UIComponent target) {
+		List<UIComponent> ancestors = new ArrayList<UIComponent>();
+		for (UIComponent c = target.getParent(); null != c; c = c.getParent()) {
+			ancestors.add(c);
+		}
+		FindNGControllerCallback ngControllerCallback = new FindNGControllerCallback();
+		for (int i = ancestors.size() - 1; i >= 0; i--) {
+			if (ngControllerCallback.visit(context, ancestors.get(i)) == VisitResult.COMPLETE) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** @return true if a rendered component isn't part of an AngularJS controller */
+	public boolean isControllerMissing() {
+		return controllerMissing;
+	}
+}
@@ -0,0 +1,142 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.faces.context.FacesContext;
+
+import de.beyondjava.angularFaces.core.ContextParameters;
+
+/**
+ * Limits the time the PuiAngularTransformer may spend on a request. If the budget is exceeded, the optional passes - translation
+ * and the type hints - are skipped. The required flag isn't optional, so it's always set. They are also skipped in advance if the recent transformations have taken longer than the
+ * budget on average, which is the case when the server is under pressure.
+ */
+public class TransformationBudget {
+	private static final Logger LOGGER = Logger.getLogger("de.beyondjava.angularFaces.core.transformation.TransformationBudget");
+
+	/**
+	 * Context parameter: the time in milliseconds the transformation of a view may take before the optional passes are skipped. By
+	 * default, there's no limit.
+	 */
+	public static final String TRANSFORMATION_BUDGET = "de.beyondjava.angularFaces.TRANSFORMATION_BUDGET";
+
+	/** Request attribute containing the time (System.nanoTime()) when the optional passes have to stop. */
+	private static final String DEADLINE = "de.beyondjava.angularFaces.transformationDeadline";
+
+	/** Request attribute set if the optional passes are skipped. */
+	private static final String DEGRADED = "de.beyondjava.angularFaces.degradedTransformation";
+
+	/** Weight of the current request in the moving average of the transformation times is 1/AVERAGE_WEIGHT. */
+	private static final int AVERAGE_WEIGHT = 8;
+
+	private static final AtomicLong averageTime = new AtomicLong();
+
+	private static final AtomicLong transformations = new AtomicLong();
+
+	private static final AtomicLong skippedUnderPressure = new AtomicLong();
+
+	private static final AtomicLong skippedAfterTimeout = new AtomicLong();
+
+	/** @return the budget in nanoseconds, or 0 if there's no limit */
+	private static long getBudget(FacesContext context) {
+		long ms = ContextParameters.getNumber(context, TRANSFORMATION_BUDGET, 0);
+		return Math.max(ms, 0) * 1000l * 1000l;
+	}
+
+	/**
+	 * Starts measuring the transformation of the current request.
+	 * 
+	 * @param start
+	 *            the time (System.nanoTime()) the transformation started
+	 */
+	static void start(FacesContext context, long start) {
+		long limit = getBudget(context);
+		if (limit <= 0) {
+			return;
+		}
+		transformations.incrementAndGet();
+		context.getAttributes().put(DEADLINE, start + limit);
+		if (averageTime.get() > limit) {
+			context.getAttributes().put(DEGRADED, Boolean.TRUE);
+			skippedUnderPressure.incrementAndGet();
+			LOGGER.fine("The transformations take " + (averageTime.get() / 1000) / 1000.0d
+					+ " ms on average. The optional passes are skipped.");
+		}
+	}
+
+	/**
+	 * Are the optional passes skipped by the current request?
+	 * 
+	 * @return true if the server is under pressure or if the budget has been exceeded
+	 */
+	public static boolean isDegraded(FacesContext context) {
+		return context.getAttributes().containsKey(DEGRADED);
+	}
+
+	/**
+	 * Checks the budget before an optional pass. If it has been exceeded, the rest of the request is degraded.
+	 * 
+	 * @return true if the optional pass may run
+	 */
+	static boolean mayContinue(FacesContext context, String pass) {
+		if (isDegraded(context)) {
+			return false;
+		}
+		Long deadline = (Long) context.getAttributes().get(DEADLINE);
+		if (null != deadline && System.nanoTime() - deadline > 0) {
+			context.getAttributes().put(DEGRADED, Boolean.TRUE);
+			skippedAfterTimeout.incrementAndGet();
+			LOGGER.fine("The transformation budget has been exceeded. Skipping " + pass + ".");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the time needed by the current request to the moving average.
+	 * 
+	 * @param time
+	 *            the time in nanoseconds
+	 */
+	static void finish(FacesContext context, long time) {
+		if (null == context.getAttributes().remove(DEADLINE)) {
+			return;
+		}
+		long average;
+		do {
+			average = averageTime.get();
+		} while (!averageTime.compareAndSet(average, average + (time - average) / AVERAGE_WEIGHT));
+	}
+
+	/** @return the number of transformations measured since the application has been started */
+	public static long getTransformations() {
+		return transformations.get();
+	}
+
+	/** @return the number of requests that skipped the optional passes because the server was under pressure */
+	public static long getSkippedUnderPressure() {
+		return skippedUnderPressure.get();
+	}
+
+	/** @return the number of requests that skipped the optional passes because they exceeded the budget */
+	public static long getSkippedAfterTimeout() {
+		return skippedAfterTimeout.get();
+	}
+}
@@ -16,34 +16,35 @@
  */
 package de.beyondjava.angularFaces.core.transformation;
 
+import javax.el.ValueExpression;
 import javax.faces.component.UICommand;
 import javax.faces.component.UIComponent;
+import javax.faces.component.UIInput;
 import javax.faces.component.UIOutput;
 import javax.faces.component.visit.VisitCallback;
 import javax.faces.component.visit.VisitContext;
 import javax.faces.component.visit.VisitResult;
+import javax.faces.context.FacesContext;
 
 import de.beyondjava.angularFaces.core.ELTools;
 import de.beyondjava.angularFaces.core.i18n.I18n;
+import de.beyondjava.angularFaces.core.i18n.TranslatableAttributes;
 
-/** Translate texts store in a component. */
+/**
+ * Translate texts stored in a component. Texts compiled into translation expressions by the AngularTagDecorator are skipped.
+ */
 public class TranslationCallback implements VisitCallback {
 	I18n i18n = null;
 
 	int duplicateLabels = 0;
 
-	String[] attributesToBeTranslated = { "header", "headerText", "addLabel", "addAllLabel", "cancelLabel", "closeTitle", "collapseTitle",
-			"converterMessage", "emptyLabel", "expandTitle", "fileLimitMessage", "goodLabel", "iframeTitle", "invalidFileMessage",
-			"invalidSizeMessage", "itemLabel", "label", "menuTitle", "message", "moveButtomLabel", "moveDownLabel", "moveUpLabel",
-			"moveTopLabel", "removeAllLabel", "removeLabel", "removeFrom", "removeLabel", "requiredMessage", "resizeTitle", "saveLabel",
-			"summary", "titletip", "toggleTitle", "tooltip", "uploadLabel", "validatorMessage", "welcomeMessage" };
-
 	@Override
 	public VisitResult visit(VisitContext arg0, UIComponent component) {
-		for (String attributeName : attributesToBeTranslated) {
+		for (String attributeName : TranslatableAttributes.ATTRIBUTES) {
 			translateAttribute(component, attributeName);
 		}
-		if (component instanceof UICommand || component instanceof UIOutput) {
+		if (component instanceof UICommand || (component instanceof UIOutput && !(component instanceof UIInput))) {
+			// the value of an input field is data, not a caption
 			translateAttribute(component, "value");
 		}
 
@@ -51,14 +52,19 @@ public class TranslationCallback implements VisitCallback {
 	}
 
 	private void translateAttribute(UIComponent component, String attributeName) {
+		ValueExpression vex = component.getValueExpression(attributeName);
+		if (null != vex && TranslatableAttributes.isTranslationExpression(vex.getExpressionString())) {
+			// already translated
+			return;
+		}
+		// literal texts may have been set programmatically or by a facelet compiled without COMPILED_TRANSLATIONS
 		Object value = AttributeUtilities.getAttribute(component, attributeName);
 		if (null != value && value instanceof String) {
 			String caption = (String) value;
-			if (null != caption) {
-				String translation = translate(caption);
-				if (!caption.equals(translation)) {
-					component.getAttributes().put(attributeName, translation);
-				}
+			String translation = translate(caption);
+			if (!caption.equals(translation)) {
+				component.getAttributes().put(attributeName, translation);
+				AddedAttributes.addedToViewState(FacesContext.getCurrentInstance(), attributeName, translation);
 			}
 		}
 	}
@@ -0,0 +1,91 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import javax.faces.event.PostConstructApplicationEvent;
+import javax.faces.event.PreDestroyApplicationEvent;
+import javax.validation.constraints.NotNull;
+
+import org.apache.myfaces.test.base.junit4.AbstractJsfTestCase;
+import org.junit.Test;
+
+public class NGBeanAttributeInfoCacheTest extends AbstractJsfTestCase {
+
+	public static class Customer {
+		@NotNull
+		private String firstName;
+
+		private String lastName;
+
+		private int age;
+
+		public String getFirstName() {
+			return firstName;
+		}
+
+		public String getLastName() {
+			return lastName;
+		}
+
+		public int getAge() {
+			return age;
+		}
+	}
+
+	private final NGBeanAttributeInfoCache listener = new NGBeanAttributeInfoCache();
+
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		servletContext.addInitParameter(NGBeanAttributeInfoCache.BEAN_INFO_CACHE_SIZE, "2");
+		listener.processEvent(new PostConstructApplicationEvent(application));
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		listener.processEvent(new PreDestroyApplicationEvent(application));
+		super.tearDown();
+	}
+
+	@Test
+	public void theInformationDoesntDependOnTheExpression() {
+		NGBeanAttributeInfo info = NGBeanAttributeInfoCache.get(new BeanProperty(Customer.class, "firstName"));
+		assertTrue(info.isRequired());
+		assertNull(info.getCoreExpression());
+		assertSame(info, ELTools.getBeanAttributeInfos(new BeanProperty(Customer.class, "firstName")));
+	}
+
+	@Test
+	public void theLeastRecentlyUsedEntryIsEvicted() {
+		BeanProperty firstName = new BeanProperty(Customer.class, "firstName");
+		BeanProperty lastName = new BeanProperty(Customer.class, "lastName");
+		NGBeanAttributeInfo first = NGBeanAttributeInfoCache.get(firstName);
+		NGBeanAttributeInfo last = NGBeanAttributeInfoCache.get(lastName);
+		// firstName becomes the most recently used entry
+		assertSame(first, NGBeanAttributeInfoCache.get(firstName));
+		NGBeanAttributeInfoCache.get(new BeanProperty(Customer.class, "age"));
+		assertEquals(2, NGBeanAttributeInfoCache.size());
+		assertSame(first, NGBeanAttributeInfoCache.get(firstName));
+		assertNotSame(last, NGBeanAttributeInfoCache.get(lastName));
+	}
+}
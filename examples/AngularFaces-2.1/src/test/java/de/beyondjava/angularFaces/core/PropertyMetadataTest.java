@@ -0,0 +1,83 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.lang.annotation.Annotation;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import org.junit.Test;
+
+/**
+ * The bridge methods the compiler generates for generic interfaces and covariant return types mustn't hide the real getter.
+ */
+public class PropertyMetadataTest {
+
+	public interface Identifiable<T> {
+		T getId();
+	}
+
+	public static class Customer implements Identifiable<Long> {
+		@NotNull
+		private Long id;
+
+		@Override
+		@Size(max = 10)
+		public Long getId() {
+			return id;
+		}
+
+		public Number getRating() {
+			return null;
+		}
+	}
+
+	public static class VipCustomer extends Customer {
+		@Override
+		public Integer getRating() {
+			return null;
+		}
+	}
+
+	@Test
+	public void theRealGetterOfAGenericInterfaceIsUsed() {
+		assertEquals(Long.class, ELTools.getType(Customer.class, "id"));
+		Annotation[] annotations = ELTools.readAnnotations(Customer.class, "id");
+		assertEquals(2, annotations.length);
+		assertEquals(NotNull.class, annotations[0].annotationType());
+		assertEquals(Size.class, annotations[1].annotationType());
+	}
+
+	@Test
+	public void theMostSpecificReturnTypeWins() {
+		assertEquals(Number.class, ELTools.getType(Customer.class, "rating"));
+		assertEquals(Integer.class, ELTools.getType(VipCustomer.class, "rating"));
+	}
+
+	@Test
+	public void missingPropertiesHaveNoMetadata() {
+		PropertyMetadata metadata = PropertyMetadata.get(Customer.class, "name");
+		assertNotNull(metadata);
+		assertNull(metadata.getType());
+		assertNull(metadata.getAnnotations());
+	}
+}
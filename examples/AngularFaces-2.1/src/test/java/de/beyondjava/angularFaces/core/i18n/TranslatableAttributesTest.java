@@ -0,0 +1,52 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.i18n;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * The captions compiled into translation expressions have to be valid EL string literals.
+ */
+public class TranslatableAttributesTest {
+
+	@Test
+	public void plainCaptionsAreQuoted() {
+		assertEquals("#{i18n.translate('First name')}", TranslatableAttributes.toTranslationExpression("First name"));
+	}
+
+	@Test
+	public void apostrophesAreEscaped() {
+		assertEquals("#{i18n.translate('Customer\\'s name')}", TranslatableAttributes.toTranslationExpression("Customer's name"));
+	}
+
+	@Test
+	public void backslashesAreEscapedBeforeTheApostrophes() {
+		assertEquals("#{i18n.translate('C:\\\\temp')}", TranslatableAttributes.toTranslationExpression("C:\\temp"));
+		assertEquals("#{i18n.translate('\\\\\\'')}", TranslatableAttributes.toTranslationExpression("\\'"));
+	}
+
+	@Test
+	public void translationExpressionsAreRecognized() {
+		assertTrue(TranslatableAttributes.isTranslationExpression(TranslatableAttributes.toTranslationExpression("Save")));
+		assertFalse(TranslatableAttributes.isTranslationExpression("#{i18n.language}"));
+		assertFalse(TranslatableAttributes.isTranslationExpression(null));
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+
+import javax.faces.event.PreDestroyApplicationEvent;
+import javax.faces.view.Location;
+import javax.faces.view.facelets.Tag;
+import javax.faces.view.facelets.TagAttribute;
+
+import org.apache.myfaces.test.base.junit4.AbstractJsfTestCase;
+import org.junit.Test;
+
+/**
+ * Views whose content can't be predicted from the tags of their facelets mustn't have a manifest.
+ */
+public class AngularModelManifestTest extends AbstractJsfTestCase {
+	private static final String FACELETS = "http://xmlns.jcp.org/jsf/facelets";
+
+	private static final String JSTL = "http://xmlns.jcp.org/jsp/jstl/core";
+
+	private void record(String path, String ns, String localName, String... attributes) {
+		Location location = new Location(path, 1, 1);
+		TagAttribute[] tagAttributes = new TagAttribute[attributes.length / 2];
+		for (int i = 0; i < tagAttributes.length; i++) {
+			tagAttributes[i] = TagAttributeUtilities.createTagAttribute(location, "", attributes[2 * i], attributes[2 * i],
+					attributes[2 * i + 1]);
+		}
+		AngularModelManifest.record(new Tag(location, ns, localName, localName, new AFTagAttributes(tagAttributes)), null);
+	}
+
+	private void recordController(String path, String... attributes) {
+		String[] controller = new String[attributes.length + 2];
+		controller[0] = "ng-controller";
+		controller[1] = "CustomerController";
+		System.arraycopy(attributes, 0, controller, 2, attributes.length);
+		record(path, AngularTagDecorator.HTML_NAMESPACE, "div", controller);
+	}
+
+	@Test
+	public void aStaticViewHasAManifest() {
+		recordController("/customer.xhtml", "addLabels", "false", "addMessages", "false");
+		assertEquals(EnumSet.of(ClientFeature.ANGULARJS), AngularModelManifest.getClientFeatures("/customer.xhtml"));
+		assertFalse(AngularModelManifest.hasRuntimeTranslations("/customer.xhtml"));
+	}
+
+	@Test
+	public void aViewThatHasntBeenDecoratedHasNoManifest() {
+		assertNull(AngularModelManifest.getClientFeatures("/unknown.xhtml"));
+		assertTrue(AngularModelManifest.hasRuntimeTranslations("/unknown.xhtml"));
+	}
+
+	@Test
+	public void compositionsAreDynamic() {
+		recordController("/composition.xhtml");
+		record("/composition.xhtml", FACELETS, "composition", "template", "/template.xhtml");
+		assertNull(AngularModelManifest.getClientFeatures("/composition.xhtml"));
+		assertTrue(AngularModelManifest.hasRuntimeTranslations("/composition.xhtml"));
+	}
+
+	@Test
+	public void jstlTagsAreDynamic() {
+		recordController("/jstl.xhtml");
+		record("/jstl.xhtml", JSTL, "if", "test", "#{customer.vip}");
+		assertNull(AngularModelManifest.getClientFeatures("/jstl.xhtml"));
+	}
+
+	@Test
+	public void literalIncludesAreFollowed() {
+		record("/customers/edit.xhtml", FACELETS, "include", "src", "address.xhtml");
+		// the included facelet hasn't been decorated yet
+		assertNull(AngularModelManifest.getClientFeatures("/customers/edit.xhtml"));
+		recordController("/customers/address.xhtml");
+		assertEquals(EnumSet.of(ClientFeature.ANGULARJS, ClientFeature.DIRECTIVES),
+				AngularModelManifest.getClientFeatures("/customers/edit.xhtml"));
+	}
+
+	@Test
+	public void includesComputedByAnExpressionAreDynamic() {
+		recordController("/dynamic.xhtml");
+		record("/dynamic.xhtml", FACELETS, "include", "src", "#{navigation.page}");
+		assertNull(AngularModelManifest.getClientFeatures("/dynamic.xhtml"));
+	}
+
+	@Test
+	public void flagsComputedByAnExpressionMayBeTrue() {
+		recordController("/flags.xhtml", "addLabels", "#{settings.labels}", "addMessages", "false");
+		// the labels may be added at runtime, so the directives are needed
+		assertEquals(EnumSet.of(ClientFeature.ANGULARJS, ClientFeature.DIRECTIVES),
+				AngularModelManifest.getClientFeatures("/flags.xhtml"));
+	}
+
+	@Test
+	public void runtimeTranslationsAreRecorded() {
+		record("/translated.xhtml", "http://xmlns.jcp.org/jsf/html", "outputText", "value", "Name",
+				AngularTagDecorator.TRANSLATION_MARKER, "true");
+		assertTrue(AngularModelManifest.hasRuntimeTranslations("/translated.xhtml"));
+	}
+
+	@Test
+	public void theManifestsAreDroppedWithTheApplication() {
+		recordController("/customer.xhtml");
+		new AngularModelManifest().processEvent(new PreDestroyApplicationEvent(application));
+		assertNull(AngularModelManifest.getClientFeatures("/customer.xhtml"));
+	}
+}
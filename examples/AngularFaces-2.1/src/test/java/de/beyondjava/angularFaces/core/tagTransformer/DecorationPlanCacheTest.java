@@ -0,0 +1,78 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import javax.faces.view.Location;
+import javax.faces.view.facelets.Tag;
+import javax.faces.view.facelets.TagAttribute;
+
+import org.junit.Test;
+
+/**
+ * Tags sharing a decoration plan have to be decorated the same way, so everything the decoration depends on has to be part of the
+ * key.
+ */
+public class DecorationPlanCacheTest {
+	private static final String PASS_THROUGH = "http://xmlns.jcp.org/jsf/passthrough";
+
+	private final DecorationPlanCache cache = new DecorationPlanCache(10);
+
+	private final Location location = new Location("/plans.xhtml", 1, 1);
+
+	private TagAttribute attribute(String ns, String localName, String value) {
+		return TagAttributeUtilities.createTagAttribute(location, ns, localName, localName, value);
+	}
+
+	private String key(String ns, String localName, TagAttribute... attributes) {
+		return cache.getKey(new Tag(location, ns, localName, localName, new AFTagAttributes(attributes)));
+	}
+
+	@Test
+	public void theValuesDontMatterUnlessTheyContainAngularExpressions() {
+		String ns = "http://xmlns.jcp.org/jsf/html";
+		assertEquals(key(ns, "inputText", attribute("", "value", "#{customer.firstName}")),
+				key(ns, "inputText", attribute("", "value", "#{customer.lastName}")));
+		assertFalse(key(ns, "inputText", attribute("", "value", "#{customer.firstName}")).equals(
+				key(ns, "inputText", attribute("", "value", "{{customer.firstName}}"))));
+	}
+
+	@Test
+	public void passThroughAttributesAreDistinguished() {
+		String ns = AngularTagDecorator.HTML_NAMESPACE;
+		assertFalse(key(ns, "div", attribute("", "ng-show", "visible")).equals(
+				key(ns, "div", attribute(PASS_THROUGH, "ng-show", "visible"))));
+	}
+
+	@Test
+	public void theElementNameIsPartOfTheKeyOfJsfElements() {
+		String ns = "http://xmlns.jcp.org/jsf";
+		String input = key(ns, "element", attribute(PASS_THROUGH, "elementName", "input"));
+		String div = key(ns, "element", attribute(PASS_THROUGH, "elementName", "div"));
+		assertFalse(input.equals(div));
+		assertEquals(input, key(ns, "element", attribute(PASS_THROUGH, "elementName", "input")));
+	}
+
+	@Test
+	public void theElementNameOfOtherTagsIsIgnored() {
+		String ns = AngularTagDecorator.HTML_NAMESPACE;
+		assertEquals(key(ns, "div", attribute(PASS_THROUGH, "elementName", "input")),
+				key(ns, "div", attribute(PASS_THROUGH, "elementName", "div")));
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.tagTransformer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import javax.faces.view.Location;
+import javax.faces.view.facelets.Tag;
+import javax.faces.view.facelets.TagAttribute;
+
+import org.apache.myfaces.test.base.junit4.AbstractJsfTestCase;
+import org.junit.Test;
+
+/**
+ * With LIGHTWEIGHT_HTML, only the div and span tags referring to JSF beans or declaring the AngularJS controller become components.
+ */
+public class LightweightHTMLTest extends AbstractJsfTestCase {
+
+	private Tag decorate(boolean lightweight, String localName, String attributeName, String value) {
+		servletContext.addInitParameter(AngularTagDecorator.LIGHTWEIGHT_HTML, String.valueOf(lightweight));
+		Location location = new Location("/lightweight.xhtml", 1, 1);
+		TagAttribute attribute = TagAttributeUtilities.createTagAttribute(location, "", attributeName, attributeName, value);
+		Tag tag = new Tag(location, AngularTagDecorator.HTML_NAMESPACE, localName, localName, new AFTagAttributes(
+				new TagAttribute[] { attribute }));
+		return new AngularTagDecorator().decorate(tag);
+	}
+
+	@Test
+	public void angularAttributesAreRenderedAsMarkup() {
+		assertNull(decorate(true, "div", "ng-show", "visible"));
+		assertNull(decorate(true, "span", "ng-click", "toggle()"));
+	}
+
+	@Test
+	public void beanExpressionsRemainComponents() {
+		Tag decorated = decorate(true, "span", "title", "{{customerBean.lastName}}");
+		assertNotNull(decorated);
+		assertEquals("puiSpan", decorated.getLocalName());
+	}
+
+	@Test
+	public void theControllerRemainsAComponent() {
+		Tag decorated = decorate(true, "div", "ng-controller", "CustomerController");
+		assertNotNull(decorated);
+		assertEquals("puiDiv", decorated.getLocalName());
+	}
+
+	@Test
+	public void withoutLightweightHTMLEveryAngularTagIsAComponent() {
+		Tag decorated = decorate(false, "div", "ng-show", "visible");
+		assertNotNull(decorated);
+		assertEquals("puiDiv", decorated.getLocalName());
+	}
+}
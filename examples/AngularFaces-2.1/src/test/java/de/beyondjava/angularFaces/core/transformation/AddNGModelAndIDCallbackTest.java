@@ -0,0 +1,99 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.faces.component.UIComponent;
+import javax.faces.component.html.HtmlInputText;
+import javax.faces.event.PreDestroyApplicationEvent;
+import javax.faces.view.Location;
+import javax.faces.view.facelets.Tag;
+import javax.faces.view.facelets.TagAttribute;
+
+import org.apache.myfaces.test.base.junit4.AbstractJsfTestCase;
+import org.junit.Test;
+
+import de.beyondjava.angularFaces.core.tagTransformer.AFTagAttributes;
+import de.beyondjava.angularFaces.core.tagTransformer.AngularModelManifest;
+import de.beyondjava.angularFaces.core.tagTransformer.AngularTagDecorator;
+import de.beyondjava.angularFaces.core.tagTransformer.TagAttributeUtilities;
+
+/**
+ * The attributes synchronized with the client are registered along with their component, no matter whether their expressions have
+ * been parsed when the facelet was compiled or are parsed at runtime.
+ */
+public class AddNGModelAndIDCallbackTest extends AbstractJsfTestCase {
+
+	/** Records the registrations instead of passing them to PuiModelSync. */
+	private static class RecordingCallback extends AddNGModelAndIDCallback {
+		private final List<String> registrations = new ArrayList<String>();
+
+		@Override
+		protected void register(String expression, UIComponent component, boolean cacheable, boolean once) {
+			registrations.add(expression + "@" + component.getId() + (cacheable ? " cacheable" : "") + (once ? " once" : ""));
+		}
+	}
+
+	private String decorate(String value) {
+		Location location = new Location("/customer.xhtml", 1, 1);
+		TagAttribute attribute = TagAttributeUtilities.createTagAttribute(location, "", "value", "value", value);
+		Tag tag = new Tag(location, "http://xmlns.jcp.org/jsf/html", "inputText", "h:inputText", new AFTagAttributes(
+				new TagAttribute[] { attribute }));
+		Tag decorated = new AngularTagDecorator().decorate(tag);
+		assertNotNull(decorated);
+		return decorated.getAttributes().get("angularfacesattributes").getValue();
+	}
+
+	private List<String> visit(String attributeList, String id, String once) {
+		HtmlInputText component = new HtmlInputText();
+		component.setId(id);
+		component.getAttributes().put("angularfacesattributes", attributeList);
+		if (null != once) {
+			component.getAttributes().put("once", once);
+		}
+		RecordingCallback callback = new RecordingCallback();
+		callback.visit(null, component);
+		return callback.registrations;
+	}
+
+	@Test
+	public void compiledExpressionsAreRegisteredWithTheirComponent() {
+		String attributeList = decorate("{{customerBean.lastName}}");
+		assertEquals("{{customerBean.lastName}}", attributeList);
+		// the expressions have been parsed when the facelet was compiled
+		assertSame(AngularModelManifest.getExpressions(attributeList), AngularModelManifest.getExpressions(attributeList));
+		List<String> compiled = visit(attributeList, "lastName", "true");
+		assertEquals(Arrays.asList("customerBean.lastName@lastName once"), compiled);
+
+		// without a manifest, the expressions are parsed at runtime
+		new AngularModelManifest().processEvent(new PreDestroyApplicationEvent(application));
+		assertEquals(compiled, visit(attributeList, "lastName", "true"));
+	}
+
+	@Test
+	public void programmaticAttributesAreParsedAtRuntime() {
+		List<String> registrations = visit("{{customerBean.firstName}},{{customerBean.lastName}}", "name", null);
+		assertEquals(Arrays.asList("customerBean.firstName@name", "customerBean.lastName@name"), registrations);
+	}
+}
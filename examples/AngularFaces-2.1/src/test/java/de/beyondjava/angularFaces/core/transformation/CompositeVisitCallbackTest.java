@@ -0,0 +1,133 @@
+/**
+ *  (C) 2013-2014 Stephan Rauh http://www.beyondjava.net
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.beyondjava.angularFaces.core.transformation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIPanel;
+import javax.faces.component.visit.VisitCallback;
+import javax.faces.component.visit.VisitContext;
+import javax.faces.component.visit.VisitResult;
+
+import org.apache.myfaces.test.base.junit4.AbstractJsfTestCase;
+import org.junit.Test;
+
+/**
+ * Each callback of a CompositeVisitCallback sees the components it would see if it visited the tree on its own.
+ */
+public class CompositeVisitCallbackTest extends AbstractJsfTestCase {
+
+	/** Records the components it visits, and returns the given result when it visits a particular component. */
+	private static class RecordingCallback implements VisitCallback {
+		private final List<String> visited = new ArrayList<String>();
+
+		private final String id;
+
+		private final VisitResult result;
+
+		RecordingCallback(String id, VisitResult result) {
+			this.id = id;
+			this.result = result;
+		}
+
+		@Override
+		public VisitResult visit(VisitContext context, UIComponent component) {
+			visited.add(component.getId());
+			return component.getId().equals(id) ? result : VisitResult.ACCEPT;
+		}
+	}
+
+	/**
+	 * <pre>
+	 * root
+	 *   a
+	 *     a1
+	 *     a2
+	 *   b
+	 *     b1
+	 * </pre>
+	 */
+	private UIComponent createTree() {
+		UIComponent root = panel("root");
+		UIComponent a = panel("a");
+		UIComponent b = panel("b");
+		root.getChildren().add(a);
+		root.getChildren().add(b);
+		a.getChildren().add(panel("a1"));
+		a.getChildren().add(panel("a2"));
+		b.getChildren().add(panel("b1"));
+		return root;
+	}
+
+	private UIComponent panel(String id) {
+		UIPanel panel = new UIPanel();
+		panel.setId(id);
+		return panel;
+	}
+
+	private void visit(UIComponent root, CompositeVisitCallback callback) {
+		root.visitTree(new FullVisitContext(facesContext), callback);
+	}
+
+	@Test
+	public void aRejectedSubtreeIsSkippedOnlyByTheRejectingCallback() {
+		RecordingCallback rejecting = new RecordingCallback("a", VisitResult.REJECT);
+		RecordingCallback accepting = new RecordingCallback(null, null);
+		visit(createTree(), new CompositeVisitCallback().add("rejecting", rejecting).add("accepting", accepting));
+		assertEquals(Arrays.asList("root", "a", "b", "b1"), rejecting.visited);
+		assertEquals(Arrays.asList("root", "a", "a1", "a2", "b", "b1"), accepting.visited);
+	}
+
+	@Test
+	public void aCompleteCallbackIsntCalledAnymore() {
+		RecordingCallback completing = new RecordingCallback("a1", VisitResult.COMPLETE);
+		RecordingCallback accepting = new RecordingCallback(null, null);
+		visit(createTree(), new CompositeVisitCallback().add("completing", completing).add("accepting", accepting));
+		assertEquals(Arrays.asList("root", "a", "a1"), completing.visited);
+		assertEquals(Arrays.asList("root", "a", "a1", "a2", "b", "b1"), accepting.visited);
+	}
+
+	@Test
+	public void theVisitStopsWhenEveryCallbackIsComplete() {
+		RecordingCallback first = new RecordingCallback("a", VisitResult.COMPLETE);
+		RecordingCallback second = new RecordingCallback("a1", VisitResult.COMPLETE);
+		RecordingCallback observer = new RecordingCallback(null, null);
+		CompositeVisitCallback composite = new CompositeVisitCallback().add("first", first).add("second", second);
+		visit(createTree(), new CompositeVisitCallback().add("composite", composite).add("observer", observer));
+		assertEquals(Arrays.asList("root", "a"), first.visited);
+		assertEquals(Arrays.asList("root", "a", "a1"), second.visited);
+		assertEquals(VisitResult.COMPLETE, composite.visit(new FullVisitContext(facesContext), panel("c")));
+	}
+
+	@Test
+	public void theChildrenAreSkippedWhenEveryCallbackRejectsThem() {
+		RecordingCallback first = new RecordingCallback("a", VisitResult.REJECT);
+		RecordingCallback second = new RecordingCallback("a", VisitResult.REJECT);
+		visit(createTree(), new CompositeVisitCallback().add("first", first).add("second", second));
+		assertEquals(Arrays.asList("root", "a", "b", "b1"), first.visited);
+		assertEquals(first.visited, second.visited);
+
+		CompositeVisitCallback composite = new CompositeVisitCallback().add("first", new RecordingCallback("a", VisitResult.REJECT))
+				.add("second", new RecordingCallback("a", VisitResult.REJECT));
+		assertEquals(VisitResult.REJECT, composite.visit(new FullVisitContext(facesContext), panel("a")));
+	}
+}